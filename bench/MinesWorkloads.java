@@ -0,0 +1,563 @@
+/**
+ *  MinesWorkloads.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.awt.Event;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import mines.bench.Workload;
+
+/**
+ * The workloads timed by the benchmarks in mines.bench.  They live in the
+ * default package, beside the game classes they drive.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MinesWorkloads
+{
+    private MinesWorkloads ()
+    {
+    }
+
+    /**
+     * MineField.newGame: clear the board and lay the mines.
+     */
+    public static final class SetupGame implements Workload
+    {
+        private MineField field;
+        private int nmines;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+        {
+            this.field = new MineField (rows, columns);
+            this.nmines = nmines;
+            field.setSeed (seed);
+        }
+
+        public void reset (int count)
+        {
+        }
+
+        public Object run ()
+        {
+            field.newGame (nmines);
+            return field;
+        }
+    }
+
+    /**
+     * MineBitboard.layMines.
+     */
+    public static final class LayMines implements Workload
+    {
+        private MineBitboard board;
+        private MineRandom random;
+        private int nmines;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+        {
+            this.board = new MineBitboard (rows, columns);
+            this.random = new MineRandom (seed);
+            this.nmines = nmines;
+        }
+
+        public void reset (int count)
+        {
+        }
+
+        public Object run ()
+        {
+            board.layMines (nmines, random);
+            return board;
+        }
+    }
+
+    /**
+     * MineField.exposeCellAt in the middle of a board whose only mine
+     * is in the top left corner: every other cell is exposed.  Each run
+     * reveals a field of its own, set up by reset.
+     */
+    public static final class OpenReveal implements Workload
+    {
+        private MineBitboard board;
+        private MineField[] fields = new MineField [0];
+        private int next;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+        {
+            board = new MineBitboard (rows, columns);
+            board.setMined (0, 0, true);
+        }
+
+        public void reset (int count)
+        {
+            fields = growFields (fields, count, board);
+            for (int i = 0; i < count; ++i)
+            {
+                fields[i].newGame (board);
+            }
+            next = 0;
+        }
+
+        public Object run ()
+        {
+            MineField field = fields[next++];
+            field.exposeCellAt (board.getRows () / 2, board.getColumns () / 2);
+            return field;
+        }
+    }
+
+    /**
+     * MineField.clearAround on an exposed number with all of its mines
+     * flagged, and at least one safe neighbor left to expose.
+     *
+     * The chords are found once, by playing them in turn on one field:
+     * after the first click, each number met in a pass over the board
+     * that has a covered safe neighbor is chorded.  Reset sets up as many
+     * copies of that field, with the mines around every chord flagged,
+     * as the runs need, so that on a large board every run is a chord on
+     * the same field.  Flags on mines change nothing the chords expose.
+     */
+    public static final class Chord implements Workload
+    {
+        // Chords found on one field, at most.
+        private final static int MAX_CHORDS = 1024;
+
+        private MineBitboard board;
+        private long seed;
+        private int firstRow;
+        private int firstColumn;
+        private int[] chords = new int [MAX_CHORDS];
+        private int nchords;
+        private MineField[] fields = new MineField [0];
+        private int next;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+        {
+            this.board = new MineBitboard (rows, columns);
+            this.seed = seed;
+            MineRandom random = new MineRandom (seed);
+            do
+            {
+                board.layMines (nmines, random);
+            }
+            while (!findChords ());
+        }
+
+        private boolean findChords ()
+        {
+            int rows = board.getRows ();
+            int columns = board.getColumns ();
+
+            // First click: the middle, or the first safe cell after it.
+            int start = (rows / 2) * columns + (columns / 2);
+            int index = start;
+            while (board.isMined (index / columns, index % columns))
+            {
+                index = (index + 1) % (rows * columns);
+            }
+            firstRow = index / columns;
+            firstColumn = index % columns;
+
+            MineField field = new MineField (rows, columns);
+            setUpField (field);
+            nchords = 0;
+            for (int r = 0; r < rows && nchords < MAX_CHORDS; ++r)
+            {
+                for (int c = 0; c < columns && nchords < MAX_CHORDS; ++c)
+                {
+                    if (field.getTag (r, c) > MineField.TAG_ZERO &&
+                        hasCoveredSafeNeighbor (field, r, c))
+                    {
+                        flagMinesAround (field, r, c);
+                        field.clearAround (r, c);
+                        chords[nchords++] = r * columns + c;
+                    }
+                }
+            }
+            return nchords > 0;
+        }
+
+        private boolean hasCoveredSafeNeighbor (MineField field,
+                                                int row, int column)
+        {
+            for (int r = row - 1; r <= row + 1; ++r)
+            {
+                for (int c = column - 1; c <= column + 1; ++c)
+                {
+                    if (r >= 0 && r < field.getRows () &&
+                        c >= 0 && c < field.getColumns () &&
+                        !field.cellIsExposed (r, c) && !field.isMined (r, c))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void flagMinesAround (MineField field, int row, int column)
+        {
+            for (int r = row - 1; r <= row + 1; ++r)
+            {
+                for (int c = column - 1; c <= column + 1; ++c)
+                {
+                    if (r >= 0 && r < field.getRows () &&
+                        c >= 0 && c < field.getColumns () &&
+                        field.isMined (r, c) &&
+                        field.getTag (r, c) == MineField.TAG_NULL)
+                    {
+                        field.rotateTagAt (r, c);
+                    }
+                }
+            }
+        }
+
+        private void setUpField (MineField field)
+        {
+            field.setSeed (seed);
+            field.newGame (board);
+            field.exposeCellAt (firstRow, firstColumn);
+        }
+
+        public void reset (int count)
+        {
+            int nfields = (count + nchords - 1) / nchords;
+            fields = growFields (fields, nfields, board);
+            int columns = board.getColumns ();
+            for (int i = 0; i < nfields; ++i)
+            {
+                MineField field = fields[i];
+                setUpField (field);
+                for (int k = 0; k < nchords; ++k)
+                {
+                    flagMinesAround (field, chords[k] / columns,
+                                     chords[k] % columns);
+                }
+            }
+            next = 0;
+        }
+
+        public Object run ()
+        {
+            MineField field = fields[next / nchords];
+            int chord = chords[next % nchords];
+            ++next;
+            field.clearAround (chord / board.getColumns (),
+                               chord % board.getColumns ());
+            return field;
+        }
+    }
+
+    /**
+     * MineSolver.solve after a first click that opens an opening: every
+     * move that can be proven, with the exposures they cause.  Each run
+     * solves a field of its own, set up by reset.
+     */
+    public static final class Solve implements Workload
+    {
+        private MineBitboard board;
+        private long seed;
+        private MineField[] fields = new MineField [0];
+        private MineSolver[] solvers = new MineSolver [0];
+        private int firstRow;
+        private int firstColumn;
+        private int next;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+        {
+            this.board = new MineBitboard (rows, columns);
+            this.seed = seed;
+            MineRandom random = new MineRandom (seed);
+            do
+            {
+                board.layMines (nmines, random);
+            }
+            while (!findOpening ());
+        }
+
+        /**
+         * Find the first unmined cell with no adjacent mines, from the
+         * middle of the board on.
+         */
+        private boolean findOpening ()
+        {
+            int rows = board.getRows ();
+            int columns = board.getColumns ();
+            MineField field = new MineField (rows, columns);
+            field.setupGame (board);
+
+            int ncells = rows * columns;
+            int start = (rows / 2) * columns + (columns / 2);
+            for (int n = 0; n < ncells; ++n)
+            {
+                int index = (start + n) % ncells;
+                int r = index / columns;
+                int c = index % columns;
+                if (!field.isMined (r, c) &&
+                    field.getAdjacentMineCount (r, c) == 0)
+                {
+                    firstRow = r;
+                    firstColumn = c;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void reset (int count)
+        {
+            if (fields.length < count)
+            {
+                fields = growFields (fields, count, board);
+                MineSolver[] grown = new MineSolver [count];
+                System.arraycopy (solvers, 0, grown, 0, solvers.length);
+                for (int i = solvers.length; i < count; ++i)
+                {
+                    grown[i] = new MineSolver (fields[i]);
+                }
+                solvers = grown;
+            }
+            for (int i = 0; i < count; ++i)
+            {
+                // The solver hears of the new game, and forgets the last.
+                fields[i].setSeed (seed);
+                fields[i].newGame (board);
+                fields[i].exposeCellAt (firstRow, firstColumn);
+            }
+            next = 0;
+        }
+
+        public Object run ()
+        {
+            solvers[next].solve ();
+            return fields[next++];
+        }
+    }
+
+    /**
+     * MineProbability.compute where the solver gets stuck after a first
+     * click that opens an opening.
+     */
+    public static final class Probability implements Workload
+    {
+        private MineProbability probability;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+            throws Exception
+        {
+            Solve solve = new Solve ();
+            solve.setUp (rows, columns, nmines, seed);
+            solve.reset (1);
+            solve.run ();
+            probability = new MineProbability (solve.solvers[0]);
+        }
+
+        public void reset (int count)
+        {
+        }
+
+        public Object run ()
+        {
+            probability.compute ();
+            return probability;
+        }
+    }
+
+    /**
+     * MinesView.paintEverything into an offscreen image: the panels,
+     * borders and every cell, as when the back buffer is made.
+     */
+    public static final class Paint implements Workload
+    {
+        private MinesView view;
+        private Graphics graphics;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+        {
+            view = createView (rows, columns, nmines, seed);
+            graphics = createImage (view).createGraphics ();
+        }
+
+        public void reset (int count)
+        {
+        }
+
+        public Object run ()
+        {
+            view.paintEverything (graphics);
+            return view;
+        }
+    }
+
+    /**
+     * MinesView.paintChanges after the mouse, held down in the grid, is
+     * dragged to the next cell: the steady state of a drag.
+     */
+    public static final class DragUpdate implements Workload
+    {
+        private MinesView view;
+        private Graphics graphics;
+        private Event event;
+        private Rectangle[] cells = new Rectangle [2];
+        private int next;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+        {
+            view = createView (rows, columns, nmines, seed);
+            graphics = createImage (view).createGraphics ();
+            view.paintEverything (graphics);
+
+            cells[0] = view.getCellRect (rows / 2, columns / 2 - 1);
+            cells[1] = view.getCellRect (rows / 2, columns / 2);
+            event = new Event (view, 0L, Event.MOUSE_DOWN,
+                               cells[0].x, cells[0].y, 0, 0);
+            view.mouseDown (event, cells[0].x, cells[0].y);
+            view.paintChanges (graphics);
+            event.id = Event.MOUSE_DRAG;
+        }
+
+        public void reset (int count)
+        {
+        }
+
+        public Object run ()
+        {
+            next ^= 1;
+            Rectangle cell = cells[next];
+            event.x = cell.x;
+            event.y = cell.y;
+            view.mouseDrag (event, cell.x, cell.y);
+            view.paintChanges (graphics);
+            return view;
+        }
+    }
+
+    /**
+     * The mouse tracked over the grid, a step at a time: a move, or a
+     * press dragged a pixel, each followed by a frame as the applet paints
+     * one, MinesView.paintUpdate into the back buffer and a copy of the
+     * buffer to the screen.
+     */
+    public static final class MouseTrack implements Workload
+    {
+        private MinesView view;
+        private BufferedImage backBuffer;
+        private Graphics backGraphics;
+        private Graphics screenGraphics;
+        private Rectangle clip;
+        private Event down;
+        private Event drag;
+        private Rectangle grid;
+        private int step;
+
+        public void setUp (int rows, int columns, int nmines, long seed)
+        {
+            view = createView (rows, columns, nmines, seed);
+            backBuffer = createImage (view);
+            backGraphics = backBuffer.createGraphics ();
+            screenGraphics = createImage (view).createGraphics ();
+            clip = new Rectangle (0, 0, view.getWidth (), view.getHeight ());
+            view.paintEverything (backGraphics);
+
+            grid = view.getCellRect (0, 0);
+            grid.add (view.getCellRect (rows - 1, columns - 1));
+            down = new Event (view, 0L, Event.MOUSE_DOWN, 0, 0, 0, 0);
+            drag = new Event (view, 0L, Event.MOUSE_DRAG, 0, 0, 0, 0);
+        }
+
+        public void reset (int count)
+        {
+        }
+
+        public Object run ()
+        {
+            int x = grid.x + (step * 7) % grid.width;
+            int y = grid.y + (step * 3) % grid.height;
+            if (step % 2 == 0)
+            {
+                view.mouseMove (drag, x, y);
+            }
+            else
+            {
+                view.mouseDown (down, x, y);
+                view.mouseDrag (drag, x + 1, y);
+            }
+            view.paintUpdate (backGraphics, clip);
+            screenGraphics.drawImage (backBuffer, 0, 0, null);
+            ++step;
+            return view;
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Field pools.
+    //---------------------------------------------------------------------
+
+    /**
+     * The given fields, with fields for the board added to make at least
+     * count.
+     */
+    private static MineField[] growFields (MineField[] fields, int count,
+                                           MineBitboard board)
+    {
+        if (fields.length >= count)
+        {
+            return fields;
+        }
+        MineField[] grown = new MineField [count];
+        System.arraycopy (fields, 0, grown, 0, fields.length);
+        for (int i = fields.length; i < count; ++i)
+        {
+            grown[i] = new MineField (board.getRows (), board.getColumns ());
+        }
+        return grown;
+    }
+
+    //---------------------------------------------------------------------
+    // View scaffolding.
+    //---------------------------------------------------------------------
+
+    private static MinesView createView (int rows, int columns,
+                                         int nmines, long seed)
+    {
+        return new MinesView (rows, columns, nmines, rows, columns, 1,
+                              Long.valueOf (seed), false, true, new Host ());
+    }
+
+    /**
+     * The host of a benchmarked view.  The workload paints the view
+     * itself, and there is no clock to run or status line to show.
+     */
+    private final static class Host implements MinesViewListener
+    {
+        public void viewChanged ()
+        {
+        }
+
+        public void clockStarted ()
+        {
+        }
+
+        public void clockStopped ()
+        {
+        }
+
+        public void statusChanged (String status)
+        {
+        }
+    }
+
+    /**
+     * An offscreen image the size of the view's panel.
+     */
+    private static BufferedImage createImage (MinesView view)
+    {
+        return new BufferedImage (view.getWidth (), view.getHeight (),
+                                  BufferedImage.TYPE_INT_RGB);
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ *  ZoomCheck.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.awt.Event;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import mines.bench.Workloads;
+
+/**
+ * Checks that zooming in works on a board shown whole, as every board
+ * is unless the view is given smaller: from the unzoomed size, '+' must
+ * make the cells bigger, keep the panel's size, and leave the view to
+ * scroll over the board, and '-' must bring the whole board back.  The
+ * check exits with status 1 otherwise, failing the build.  It lives in
+ * the default package, beside the game classes it drives, and paints
+ * into an offscreen image, so no display is needed.
+ *
+ * Usage: java ZoomCheck [board ...]
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class ZoomCheck
+{
+    private ZoomCheck ()
+    {
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        String[] boards = args.length > 0 ? args :
+            new String[] { "easy", "medium", "hard" };
+
+        boolean ok = true;
+        for (int i = 0; i < boards.length; ++i)
+        {
+            String failure = check (boards[i]);
+            System.out.println (boards[i] + ": " +
+                                (failure == null ? "ok" : failure));
+            ok &= failure == null;
+        }
+        if (!ok)
+        {
+            System.exit (1);
+        }
+    }
+
+    /**
+     * Zoom in and out on the given board, returning what went wrong, or
+     * null if nothing did.
+     */
+    private static String check (String board)
+    {
+        int[] dims = Workloads.parseBoard (board, "preset");
+        int rows = dims[0];
+        int columns = dims[1];
+        MinesView view = new MinesView (rows, columns, dims[2], rows, columns,
+                                        1, Long.valueOf (Workloads.SEED),
+                                        false, true, new Host ());
+        BufferedImage image =
+            new BufferedImage (view.getWidth (), view.getHeight (),
+                               BufferedImage.TYPE_INT_RGB);
+        Graphics g = image.createGraphics ();
+        Rectangle clip = new Rectangle (0, 0, image.getWidth (),
+                                        image.getHeight ());
+        Event event = new Event (view, Event.KEY_PRESS, null);
+        view.paintEverything (g);
+
+        Rectangle before = view.getCellRect (0, 0);
+        view.keyDown (event, '+');
+        view.paintUpdate (g, clip);
+        Rectangle after = view.getCellRect (0, 0);
+        if (after.width <= before.width || after.height <= before.height)
+        {
+            return "cell " + before.width + "x" + before.height +
+                " after zooming in is " + after.width + "x" + after.height;
+        }
+        if (view.getWidth () != image.getWidth () ||
+            view.getHeight () != image.getHeight ())
+        {
+            return "panel resized on zooming in";
+        }
+
+        // The board no longer fits, so the view scrolls a column right.
+        view.keyDown (event, Event.RIGHT);
+        view.paintUpdate (g, clip);
+        if (view.getCellRect (0, 1).x != after.x)
+        {
+            return "no scrolling after zooming in";
+        }
+
+        view.keyDown (event, '-');
+        view.paintUpdate (g, clip);
+        Rectangle back = view.getCellRect (0, 0);
+        if (!back.equals (before))
+        {
+            return "cell 0,0 at " + back + " after zooming out, not " +
+                before;
+        }
+        g.dispose ();
+        view.destroy ();
+        return null;
+    }
+
+    /**
+     * The host of the checked view, which paints it itself.
+     */
+    private final static class Host implements MinesViewListener
+    {
+        public void viewChanged ()
+        {
+        }
+
+        public void clockStarted ()
+        {
+        }
+
+        public void clockStopped ()
+        {
+        }
+
+        public void statusChanged (String status)
+        {
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ *  AllocationCheck.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that tracking the mouse allocates nothing.  The MouseTrack
+ * workload is run until compiled, then run again while the virtual
+ * machine counts the bytes the thread allocates, which must be none;
+ * the check exits with status 1 otherwise, failing the build.  The
+ * workload paints into offscreen images, so no display is needed.
+ *
+ * Usage: java mines.bench.AllocationCheck [board] [steps]
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class AllocationCheck
+{
+    // Runs of the workload before counting, to have it compiled.
+    private final static int WARMUP_PASSES = 3;
+
+    private AllocationCheck ()
+    {
+    }
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        String board = args.length > 0 ? args[0] : "hard";
+        int steps = args.length > 1 ? Integer.parseInt (args[1]) : 100000;
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean ();
+        long thread = Thread.currentThread ().getId ();
+
+        Workload track = Workloads.create ("MouseTrack", board, "preset");
+        for (int pass = 0; pass < WARMUP_PASSES; ++pass)
+        {
+            run (track, steps);
+        }
+
+        long before = threads.getThreadAllocatedBytes (thread);
+        run (track, steps);
+        long bytes = threads.getThreadAllocatedBytes (thread) - before;
+
+        System.out.println (board + ": " + bytes + " bytes allocated in " +
+                            steps + " steps");
+        if (bytes != 0)
+        {
+            System.exit (1);
+        }
+    }
+
+    private static void run (Workload workload, int steps)
+    {
+        for (int i = 0; i < steps; ++i)
+        {
+            workload.run ();
+        }
+    }
+}
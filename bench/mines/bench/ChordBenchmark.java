@@ -0,0 +1,59 @@
+/**
+ *  ChordBenchmark.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time for MineField.clearAround (the left-right "chord" click) on a
+ * numbered cell whose mines have all been flagged.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@State (Scope.Thread)
+@Fork (1)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+public class ChordBenchmark
+{
+    // Operations per invocation, so that the cost of the setup before
+    // each invocation is not timed along with an operation too short to
+    // hide it.
+    private final static int BATCH = 256;
+
+    @Param ({ "easy", "medium", "hard", "1000x1000" })
+    public String board;
+
+    private Workload chord;
+
+    @Setup (Level.Trial)
+    public void setUp () throws Exception
+    {
+        chord = Workloads.create ("Chord", board, "preset");
+    }
+
+    @Setup (Level.Invocation)
+    public void reset ()
+    {
+        chord.reset (BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation (BATCH)
+    public void clearAround (Blackhole blackhole)
+    {
+        for (int i = 0; i < BATCH; ++i)
+        {
+            blackhole.consume (chord.run ());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ *  PaintBenchmark.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time for MinesView to render into an offscreen Graphics: everything,
+ * as when the applet's back buffer is made, and the changes that follow a
+ * drag from one cell to the next.  The applet's own paint is left out,
+ * since it mostly copies the back buffer.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@State (Scope.Thread)
+@Fork (1)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+public class PaintBenchmark
+{
+    @Param ({ "easy", "medium", "hard", "250x250" })
+    public String board;
+
+    private Workload paint;
+    private Workload drag;
+
+    @Setup (Level.Trial)
+    public void setUp () throws Exception
+    {
+        paint = Workloads.create ("Paint", board, "preset");
+        drag = Workloads.create ("DragUpdate", board, "preset");
+    }
+
+    @Benchmark
+    public Object paint ()
+    {
+        return paint.run ();
+    }
+
+    @Benchmark
+    public Object dragUpdate ()
+    {
+        return drag.run ();
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ *  ProbabilityBenchmark.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time for MineProbability.compute, where the solver gets stuck after
+ * the first click.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@State (Scope.Thread)
+@Fork (1)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+public class ProbabilityBenchmark
+{
+    @Param ({ "easy", "medium", "hard", "1000x1000" })
+    public String board;
+
+    private Workload probability;
+
+    @Setup (Level.Trial)
+    public void setUp () throws Exception
+    {
+        probability = Workloads.create ("Probability", board, "preset");
+    }
+
+    @Benchmark
+    public Object compute ()
+    {
+        return probability.run ();
+    }
+}
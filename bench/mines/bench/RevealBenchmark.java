@@ -0,0 +1,59 @@
+/**
+ *  RevealBenchmark.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time for MineField.exposeCellAt on the worst case, a board whose only
+ * mine is in a corner, so that one click ripples across every cell.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@State (Scope.Thread)
+@Fork (value = 1, jvmArgsAppend = "-Xmx3g")   // a batch of 5000x5000 fields
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+public class RevealBenchmark
+{
+    // Operations per invocation, so that the cost of the setup before
+    // each invocation is not timed along with an operation too short to
+    // hide it.
+    private final static int BATCH = 8;
+
+    @Param ({ "easy", "medium", "hard", "1000x1000", "5000x5000" })
+    public String board;
+
+    private Workload reveal;
+
+    @Setup (Level.Trial)
+    public void setUp () throws Exception
+    {
+        reveal = Workloads.create ("OpenReveal", board, "1");
+    }
+
+    @Setup (Level.Invocation)
+    public void reset ()
+    {
+        reveal.reset (BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation (BATCH)
+    public void exposeCellAt (Blackhole blackhole)
+    {
+        for (int i = 0; i < BATCH; ++i)
+        {
+            blackhole.consume (reveal.run ());
+        }
+    }
+}
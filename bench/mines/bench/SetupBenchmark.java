@@ -0,0 +1,54 @@
+/**
+ *  SetupBenchmark.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time to set up a new game: MineField.newGame (clear and lay mines)
+ * and MineBitboard.layMines, over board sizes and densities.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@State (Scope.Thread)
+@Fork (1)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+public class SetupBenchmark
+{
+    @Param ({ "easy", "medium", "hard", "1000x1000", "5000x5000" })
+    public String board;
+
+    @Param ({ "preset", "0.1", "0.2" })
+    public String mines;
+
+    private Workload setupGame;
+    private Workload layMines;
+
+    @Setup (Level.Trial)
+    public void setUp () throws Exception
+    {
+        setupGame = Workloads.create ("SetupGame", board, mines);
+        layMines = Workloads.create ("LayMines", board, mines);
+    }
+
+    @Benchmark
+    public Object setupGame ()
+    {
+        return setupGame.run ();
+    }
+
+    @Benchmark
+    public Object layMines ()
+    {
+        return layMines.run ();
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ *  SolveBenchmark.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time for MineSolver.solve to play every provable move after the first
+ * click, on a freshly set up board.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@State (Scope.Thread)
+@Fork (1)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+public class SolveBenchmark
+{
+    // Operations per invocation, so that the cost of the setup before
+    // each invocation is not timed along with an operation too short to
+    // hide it.
+    private final static int BATCH = 16;
+
+    @Param ({ "easy", "medium", "hard", "1000x1000" })
+    public String board;
+
+    private Workload solve;
+
+    @Setup (Level.Trial)
+    public void setUp () throws Exception
+    {
+        solve = Workloads.create ("Solve", board, "preset");
+    }
+
+    @Setup (Level.Invocation)
+    public void reset ()
+    {
+        solve.reset (BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation (BATCH)
+    public void solve (Blackhole blackhole)
+    {
+        for (int i = 0; i < BATCH; ++i)
+        {
+            blackhole.consume (solve.run ());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ *  Workload.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+/**
+ * One operation of the game, for a benchmark to time.  The game classes
+ * live in the default package, which a packaged class (as JMH requires)
+ * cannot name, so the implementations live in the default package too
+ * (see MinesWorkloads) and are found by name.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public interface Workload
+{
+    /**
+     * Prepare for a trial on a board of the given size.
+     */
+    public void setUp (int rows, int columns, int nmines, long seed)
+        throws Exception;
+
+    /**
+     * Prepare the state that the next count runs expect.  Not timed.
+     */
+    public void reset (int count);
+
+    /**
+     * Perform the operation being timed, the next of those prepared by
+     * reset.
+     */
+    public Object run ();
+}
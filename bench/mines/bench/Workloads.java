@@ -0,0 +1,106 @@
+/**
+ *  Workloads.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+package mines.bench;
+
+/**
+ * Creates workloads, and parses the board parameters shared by the
+ * benchmarks.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class Workloads
+{
+    // The seed of every benchmark board, so that runs are comparable.
+    public final static long SEED = 19960101L;
+
+    private Workloads ()
+    {
+    }
+
+    /**
+     * Create the workload of the given name, a nested class of the
+     * default package class MinesWorkloads.
+     */
+    public static Workload create (String name)
+    {
+        try
+        {
+            return (Workload) Class.forName ("MinesWorkloads$" + name)
+                                   .getDeclaredConstructor ()
+                                   .newInstance ();
+        }
+        catch (Exception e)
+        {
+            throw new IllegalArgumentException (name, e);
+        }
+    }
+
+    /**
+     * Create a workload and set it up for the given board.
+     */
+    public static Workload create (String name, String board, String mines)
+        throws Exception
+    {
+        int[] dims = parseBoard (board, mines);
+        Workload workload = create (name);
+        workload.setUp (dims[0], dims[1], dims[2], SEED);
+        return workload;
+    }
+
+    /**
+     * Parse a board parameter and a mines parameter into rows, columns
+     * and number of mines.
+     *
+     * The board is one of the presets listed in mines.html ("easy",
+     * "medium", "hard"), or ROWSxCOLUMNS.  The mines are "preset" for the
+     * preset's count (or 15% of the cells, for a ROWSxCOLUMNS board), a
+     * fraction of the cells such as "0.2", or a count such as "99".
+     */
+    public static int[] parseBoard (String board, String mines)
+    {
+        int rows;
+        int columns;
+        int nmines;
+
+        if (board.equals ("easy"))
+        {
+            rows = 8;
+            columns = 8;
+            nmines = 10;
+        }
+        else if (board.equals ("medium"))
+        {
+            rows = 16;
+            columns = 16;
+            nmines = 20;
+        }
+        else if (board.equals ("hard"))
+        {
+            rows = 16;
+            columns = 30;
+            nmines = 99;
+        }
+        else
+        {
+            int x = board.indexOf ('x');
+            rows = Integer.parseInt (board.substring (0, x));
+            columns = Integer.parseInt (board.substring (x + 1));
+            nmines = (int) (0.15 * rows * columns);
+        }
+
+        if (mines.indexOf ('.') >= 0)
+        {
+            nmines = (int) (Double.parseDouble (mines) * rows * columns);
+        }
+        else if (!mines.equals ("preset"))
+        {
+            nmines = Integer.parseInt (mines);
+        }
+
+        return new int[] { rows, columns, nmines };
+    }
+}
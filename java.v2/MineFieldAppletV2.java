@@ -7,7 +7,7 @@
 import java.applet.Applet;
 import java.awt.*;
 import java.awt.image.*;
-import java.util.Random;
+import java.util.Arrays;
 
 /**
  * MineFieldApplet
@@ -18,6 +18,7 @@ import java.util.Random;
  * @author James Echmalian, ech@ech.net
  */
 public final class MineFieldApplet extends Applet
+    implements MineFieldListener
 {
     // Applet parameters. 
     private int rows = 8;
@@ -25,12 +26,7 @@ public final class MineFieldApplet extends Applet
     private int nmines = 10;
 
     // The Gamekeeper:
-    private boolean marksQ;
-    private byte[][] tags;
-    private byte[][] mined;
-    private int exposedCount;
-    private int unminedCount;
-    private boolean running;
+    private MineField field;
 
     // Layout variables:
     private Rectangle panelRect;
@@ -72,7 +68,6 @@ public final class MineFieldApplet extends Applet
     private Image restartImage;
     private int[] counterDigits;
     private int[] timerDigits;
-    private int counter;
 
     // Timer state:
     private boolean timerRunning;
@@ -94,28 +89,26 @@ public final class MineFieldApplet extends Applet
     private static final int MOUSE_HOT_FOR_RESTART = 3;
     private static final int MOUSE_READY_TO_FLAG = 4;
 
-    // Tag constants:
-    public static final byte TAG_NULL = 0;      // covered, no tag
-    public static final byte TAG_FLAG = 1;      // covered, flagged
-    public static final byte TAG_QUES = 2;      // covered, marked '?'
-    public static final byte TAG_BOOM = 3;      // exposed, mined
-    public static final byte TAG_MINE = 4;      // auto-exposed, mined
-    public static final byte TAG_OOPS = 5;      // auto-exposed, wrongly flagged
-    public static final byte TAG_ZERO = 6;      // exposed, no adjacent mines
-    public static final byte TAG_ONE  = 7;      // exposed, 1 adjacent mine
-    public static final byte TAG_TWO  = 8;      // exposed, 2 adjacent mines
-    public static final byte TAG_THREE = 9;     // exposed, 3 adjacent mines
-    public static final byte TAG_FOUR = 10;     // exposed, 4 adjacent mines
-    public static final byte TAG_FIVE = 11;     // exposed, 5 adjacent mines
-    public static final byte TAG_SIX  = 12;     // exposed, 6 adjacent mines
-    public static final byte TAG_SEVEN = 13;    // exposed, 7 adjacent mines
-    public static final byte TAG_EIGHT = 14;    // exposed, 8 adjacent mines
+    // Tag constants, as defined by the Gamekeeper:
+    public static final byte TAG_NULL = MineField.TAG_NULL;
+    public static final byte TAG_FLAG = MineField.TAG_FLAG;
+    public static final byte TAG_QUES = MineField.TAG_QUES;
+    public static final byte TAG_BOOM = MineField.TAG_BOOM;
+    public static final byte TAG_MINE = MineField.TAG_MINE;
+    public static final byte TAG_OOPS = MineField.TAG_OOPS;
+    public static final byte TAG_ZERO = MineField.TAG_ZERO;
+    public static final byte TAG_ONE  = MineField.TAG_ONE;
+    public static final byte TAG_TWO  = MineField.TAG_TWO;
+    public static final byte TAG_THREE = MineField.TAG_THREE;
+    public static final byte TAG_FOUR = MineField.TAG_FOUR;
+    public static final byte TAG_FIVE = MineField.TAG_FIVE;
+    public static final byte TAG_SIX  = MineField.TAG_SIX;
+    public static final byte TAG_SEVEN = MineField.TAG_SEVEN;
+    public static final byte TAG_EIGHT = MineField.TAG_EIGHT;
 
     // The color model
     private final ColorModel colorModel = makeColorModel ();
 
-    private Random random = new Random ();
-
     //---------------------------------------------------------------------
     // Implementation of Applet methods
     //---------------------------------------------------------------------
@@ -149,10 +142,8 @@ public final class MineFieldApplet extends Applet
         //
         // Create a gamekeeper.
         //
-        this.marksQ = true;
-        this.tags = new byte[rows][columns];
-        this.mined = new byte[rows][columns];
-        setupGame (nmines);
+        field = new MineField (rows, columns);
+        field.setupGame (nmines);
 
         //
         // Initialize layout.
@@ -171,7 +162,6 @@ public final class MineFieldApplet extends Applet
         needUpdate = new boolean[rows][columns];
         restartPressed = false;
         restartImage = happyImage;
-        counter = nmines;
         counterDigits = new int [3];
         timerDigits = new int [3];
 
@@ -188,8 +178,9 @@ public final class MineFieldApplet extends Applet
         String marksQString = getParameter ("marksQ");
         if (marksQString != null)
         {
-            marksQ = marksQString.equals ("true");
+            field.setMarksQ (marksQString.equals ("true"));
         }
+        field.setListener (this);
 
         setBackground (Color.lightGray);
         resize (panelRect.width, panelRect.height);
@@ -224,8 +215,8 @@ public final class MineFieldApplet extends Applet
         g.setColor (getBackground());
 
         boolean restartPressed = false;
-        Image restartImage = running ? happyImage
-                                     : gameIsWon () ? coolImage : deadImage;
+        Image restartImage = field.gameEnabled () ? happyImage
+                           : field.gameIsWon () ? coolImage : deadImage;
 
         Rectangle hotArea = null;
 
@@ -328,7 +319,7 @@ public final class MineFieldApplet extends Applet
                             int yoff = row - hotArea.y;
                             if (yoff >= 0 && yoff <= hotArea.height)
                             {
-                                byte tag = tags[row][column];
+                                byte tag = field.getTag (row, column);
                                 pressed = tag == TAG_NULL || tag == TAG_QUES;
                             }
                         }
@@ -344,7 +335,7 @@ public final class MineFieldApplet extends Applet
 
         // Update the unflagged cell counter...
         drawSevenSeg (g, counterRect, counterDigits, 
-                      counter, false);
+                      field.getCounter (), false);
 
         // Update the timer...
         if (ticking)
@@ -380,7 +371,7 @@ public final class MineFieldApplet extends Applet
         //
         paintRestartButton (g);
         drawSevenSeg (g, counterRect, counterDigits, 
-                      counter < 0 ? 0 : counter, true);
+                      Math.max (field.getCounter (), 0), true);
         drawSevenSeg (g, timerRect, timerDigits, timer, true);
 
         // Draw the grid itself.
@@ -446,7 +437,7 @@ public final class MineFieldApplet extends Applet
         {
             mouseState = MOUSE_HOT_FOR_RESTART;
         }
-        else if (!running)
+        else if (!field.gameEnabled ())
         {
             mouseState = MOUSE_COLD;
         }
@@ -487,15 +478,15 @@ public final class MineFieldApplet extends Applet
             }
             break;
         case MOUSE_HOT_FOR_CELL:
-            if (running && gridRect.inside (x, y))
+            if (field.gameEnabled () && gridRect.inside (x, y))
             {
                 // Clear a cell
                 Point p = scaleToRowColumn (x, y);
-                exposeCellAt (p.y, p.x);
+                field.exposeCellAt (p.y, p.x);
             }
             break;
         case MOUSE_READY_TO_FLAG:
-            if (running && gridRect.inside (x, y))
+            if (field.gameEnabled () && gridRect.inside (x, y))
             {
                 // Flag a cell
                 Point p = scaleToRowColumn (x, y);
@@ -503,11 +494,11 @@ public final class MineFieldApplet extends Applet
             }
             break;
         case MOUSE_HOT_FOR_CLEARING:
-            if (running && gridRect.inside (x, y))
+            if (field.gameEnabled () && gridRect.inside (x, y))
             {
                 // Clear surrounding cells
                 Point p = scaleToRowColumn (x, y);
-                clearAround (p.y, p.x);
+                field.clearAround (p.y, p.x);
             }
             break;
         }
@@ -546,363 +537,68 @@ public final class MineFieldApplet extends Applet
 
     public void newGame (int nmines)
     {
-        for (int row = rows; --row >= 0; )
-        {
-            for (int column = columns; --column >= 0; )
-            {
-                mined[row][column] = 0;
-
-                tagCell (row, column, TAG_NULL);
-            }
-        }
-
-        setupGame (nmines);
+        field.newGame (nmines);
 
         ticking = false;
         accumTime = 0;
         timer = 0;
-        counter = nmines;
         repaint ();
     }
 
-    private void tagCell (int row, int column, byte tag)
-    {
-        if (tags[row][column] != tag)
-        {
-            tags[row][column] = tag;
-            needUpdate[row][column] = true;
-            if (updateArea == null)
-            {
-                updateArea = new Rectangle (column, row, 0, 0);
-            }
-            else
-            {
-                updateArea.add (column, row);
-            }
-        }
-    }
-
-    private void startTimer () 
-    {
-        accumTime = 1000;       // timer goes to 1 on click!
-        startTime = System.currentTimeMillis ();
-        timerRunning = true;
-        ticking = true;
-    }
-
-    private void setupGame (int nmines)
-    {
-        //
-        // Determine number of available cells.
-        //
-        long product = (long) rows * (long) columns;
-        int ncells = (int) product;
-        if (product != ncells || ncells < 4)
-        {
-            // Zoicks!
-            throw new RuntimeException ();
-        }
-
-        //
-        // Keep the number of mines reasonable.
-        //
-        if (nmines >= ncells)
-            nmines = ncells - 1;
-        if (nmines < 1)
-            nmines = 1;
-
-        layMines (nmines, ncells);
-
-        exposedCount = 0;
-        unminedCount = ncells - nmines;
-        running = true;
-    }
-
-    private void layMines (int nmines, int ncells)
-    {
-        //
-        // Lay mines, one at a time.
-        //
-        while (nmines > 0)
-        {
-            layOneMine (ncells);
-            --nmines;
-            --ncells;
-        }
-    }
-
-    private void layOneMine (int nUnminedCells)
-    {
-        // Randomly select from among available cells.
-        int pos = random.nextInt ();
-        if (pos < 0) pos *= -1;
-        pos %= nUnminedCells;
-
-        //
-        // Go find that cell and mine it.
-        //
-        for (int row = 0; row < rows; ++row)
-        {
-            for (int col = 0; col < columns; ++col)
-            {
-                if (mined[row][col] == 0)
-                {
-                    if (pos-- == 0)
-                    {
-                        mined[row][col] = 1;
-                        return;
-                    }
-                }
-            }
-        }
-
-        // Should not be reached...
-        throw new RuntimeException ();
-    }
-
-    private boolean cellIsExposed (int row, int column)
-    {
-        return tags[row][column] >= TAG_BOOM;
-    }
-
-    private boolean gameIsWon ()
-    {
-        return exposedCount == unminedCount;
-    }
-
-    public void rotateTagAt (int row, int column)
-    {
-        if (!running)
-            return;
-
-        byte tag = tags[row][column];
-
-        switch (tag)
-        {
-        case TAG_NULL:
-            tag = TAG_FLAG;
-            counter -= 1;
-            break;
-        case TAG_FLAG:
-            tag = marksQ ? TAG_QUES : TAG_NULL;
-            counter += 1;
-            break;
-        case TAG_QUES:
-            tag = TAG_NULL;
-            break;
-        default:
-            return;     // can't tag exposed cell
-        }
-
-        tagCell (row, column, tag);
-    }
+    //---------------------------------------------------------------------
+    // Implementation of MineFieldListener.
+    //---------------------------------------------------------------------
 
-    public void exposeCellAt (int row, int column)
+    public void cellTagged (int row, int column)
     {
-        if (cellIsExposed (row, column) || tags[row][column] == TAG_FLAG)
-            return;
-
-        boolean wasMined = mined[row][column] != 0;
-
-        if (exposedCount == 0 && wasMined)
-        {
-            // Don't allow the first exposed cell to be mined.
-            // Move that mine somewhere else.
-            layOneMine (unminedCount);
-            mined[row][column] = 0;
-            wasMined = false;
-        }
-
-        if (wasMined)
+        needUpdate[row][column] = true;
+        if (updateArea == null)
         {
-            tagCell (row, column, TAG_BOOM);
-            showLoss ();
-            running = false;
+            updateArea = new Rectangle (column, row, 0, 0);
         }
         else
         {
-            if (exposedCount == 0)
-            {
-                startTimer ();
-            }
-            ++exposedCount;
-
-            rippleExpose (row, column);
-
-            if (gameIsWon ())
-            {
-                showWin ();
-                running = false;
-            }
+            updateArea.add (column, row);
         }
     }
 
-    private void rippleExpose (int row, int column)
+    public void gameCleared ()
     {
-        int nAdjMines = countAdjacentMines (row, column);
-        tagCell (row, column, (byte) (TAG_ZERO + nAdjMines));
-
-        if (nAdjMines == 0)
+        for (int row = 0; row < rows; ++row)
         {
-            int lowRow = row - 1;
-            if (lowRow < 0) lowRow = 0;
-            int hiRow = row + 2;
-            if (hiRow > rows) hiRow = rows;
-
-            int lowCol = column - 1;
-            if (lowCol < 0) lowCol = 0;
-            int hiCol = column + 2;
-            if (hiCol > columns) hiCol = columns;
-
-            for (int r = lowRow; r < hiRow; ++r)
-            {
-                for (int c = lowCol; c < hiCol; ++c)
-                {
-                    if (!cellIsExposed (r, c) && tags[r][c] != TAG_FLAG)
-                    {
-                        ++exposedCount;
-                        rippleExpose (r, c);
-                    }
-                }
-            }
+            Arrays.fill (needUpdate[row], true);
         }
+        updateArea = new Rectangle (0, 0, columns - 1, rows - 1);
     }
 
-    private int countAdjacentMines (int row, int column)
+    public void gameStarted ()
     {
-        int count = 0;
-
-        int lowRow = row - 1;
-        if (lowRow < 0) lowRow = 0;
-        int hiRow = row + 1;
-        if (hiRow >= rows) hiRow = rows - 1;
-
-        int lowCol = column - 1;
-        if (lowCol < 0) lowCol = 0;
-        int hiCol = column + 1;
-        if (hiCol >= columns) hiCol = columns - 1;
-
-        for (int r = lowRow; r <= hiRow; ++r)
-        {
-            for (int c = lowCol; c <= hiCol; ++c)
-            {
-                count += mined[r][c];
-            }
-        }
-
-        count -= mined[row][column];
-
-        return count;
+        startTimer ();
     }
 
-    private void showLoss ()
+    public void gameEnded ()
     {
         timerRunning = false;
         ticking = false;
-
-        for (int row = rows; --row >= 0; )
-        {
-            for (int column = columns; --column >= 0; )
-            {
-                if (tags[row][column] == TAG_BOOM)
-                    continue;
-
-                boolean isMined = mined[row][column] != 0;
-                boolean isFlagged = tags[row][column] == TAG_FLAG;
-
-                if (isMined != isFlagged)
-                {
-                    tagCell (row, column, isMined ? TAG_MINE : TAG_OOPS);
-                }
-            }
-        }
     }
 
-    private void showWin ()
+    private void startTimer () 
     {
-        timerRunning = false;
-        ticking = false;
-        counter = 0;
-        // update hi scores  NYI
-
-        for (int row = tags.length; --row >= 0; )
-        {
-            for (int column = tags[row].length; --column >= 0; )
-            {
-                switch (tags[row][column])
-                {
-                case TAG_NULL:
-                case TAG_QUES:
-                    tagCell (row, column, TAG_FLAG);
-                }
-            }
-        }
+        accumTime = 1000;       // timer goes to 1 on click!
+        startTime = System.currentTimeMillis ();
+        timerRunning = true;
+        ticking = true;
     }
 
-    private void clearAround (int row, int column)
+    private void rotateTagAt (int row, int column)
     {
-        byte tag = tags[row][column];
-        if (tag <= TAG_ZERO)
-            return;
-
-        int nAdjMines = tag - TAG_ZERO;
-
-        int lowRow = row - 1;
-        if (lowRow < 0) lowRow = 0;
-        int hiRow = row + 1;
-        if (hiRow >= rows) hiRow = rows - 1;
-
-        int lowCol = column - 1;
-        if (lowCol < 0) lowCol = 0;
-        int hiCol = column + 1;
-        if (hiCol >= columns) hiCol = columns - 1;
-
-        int nAdjFlags = 0;
-        for (int r = lowRow; r <= hiRow; ++r)
+        if (field.gameEnabled ())
         {
-            for (int c = lowCol; c <= hiCol; ++c)
-            {
-                if (tags[r][c] == TAG_FLAG)
-                    ++nAdjFlags;
-            }
-        }
-
-        if (nAdjFlags != nAdjMines)
-            return;
-
-        boolean lost = false;
-        for (int r = lowRow; r <= hiRow; ++r)
-        {
-            for (int c = lowCol; c <= hiCol; ++c)
-            {
-                if (!cellIsExposed (r, c) && tags[r][c] != TAG_FLAG)
-                {
-                    if (mined[r][c] != 0)
-                    {
-                        tagCell (r, c, TAG_BOOM);
-                        lost = true;
-                    }
-                    else
-                    {
-                        ++exposedCount;
-                        rippleExpose (r, c);
-                    }
-                }
-            }
-        }
-
-        if (lost)
-        {
-            showLoss ();
-            running = false;
-        }
-        else if (gameIsWon ())
-        {
-            showWin ();
-            running = false;
+            field.rotateTagAt (row, column);
         }
     }
 
+
     //---------------------------------------------------------------------
     // Graphics layout.
     //---------------------------------------------------------------------
@@ -1474,12 +1170,12 @@ public final class MineFieldApplet extends Applet
 
     private void paintCell (Graphics g, int row, int column, boolean pressed)
     {
-        boolean covered = !pressed && !cellIsExposed (row, column);
+        boolean covered = !pressed && !field.cellIsExposed (row, column);
         int x = gridRect.x + column * cellWidth;
         int y = gridRect.y + row * cellHeight;
         int width = cellWidth;
         int height = cellHeight;
-        int tag = tags[row][column];
+        int tag = field.getTag (row, column);
 
         if (!covered)
         {
@@ -1495,7 +1191,7 @@ public final class MineFieldApplet extends Applet
             g.fillRect (x + 2, y + 2, width - 4, height - 4);
         }
 
-        Image tagImage = tagImages[tags[row][column]];
+        Image tagImage = tagImages[tag];
         if (tagImage != null)
         {
             g.drawImage (tagImage, x + 1, y + 2, null);
@@ -0,0 +1,476 @@
+/**
+ *  MineBitboard.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A mine layout stored as rows of long bitsets, for bulk generation and
+ * analysis of boards.  Column c of a row is bit (c % 64) of word (c / 64).
+ * Neighbor counts are computed 64 cells at a time by bit-slice addition
+ * of shifted words, yielding four bit planes per row (bit 0 through bit 3
+ * of each cell's count).
+ * Class is declared final for performance reasons only.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MineBitboard
+{
+    private final int rows;
+    private final int columns;
+    private final int wordsPerRow;
+    private final long lastWordMask;    // valid columns of a row's last word
+    private final long[] bits;
+
+    // Scratch planes used by the analysis methods.
+    private long[] planes;
+
+    public MineBitboard (int rows, int columns)
+    {
+        if (rows < 1 || columns < 1)
+        {
+            throw new IllegalArgumentException ();
+        }
+
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = (columns + 63) >>> 6;
+        this.lastWordMask = -1L >>> (-columns & 63);
+        this.bits = new long [rows * wordsPerRow];
+    }
+
+    //---------------------------------------------------------------------
+    // Accessors.
+    //---------------------------------------------------------------------
+
+    public int getRows ()
+    {
+        return rows;
+    }
+
+    public int getColumns ()
+    {
+        return columns;
+    }
+
+    public int getWordsPerRow ()
+    {
+        return wordsPerRow;
+    }
+
+    public boolean isMined (int row, int column)
+    {
+        return (bits[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    public void setMined (int row, int column, boolean mined)
+    {
+        int i = row * wordsPerRow + (column >>> 6);
+        if (mined)
+            bits[i] |= 1L << column;
+        else
+            bits[i] &= ~(1L << column);
+    }
+
+    /**
+     * The mine bits of columns (64 * word) through (64 * word + 63).
+     */
+    public long getMineWord (int row, int word)
+    {
+        return bits[row * wordsPerRow + word];
+    }
+
+    public void clear ()
+    {
+        Arrays.fill (bits, 0L);
+    }
+
+    public int countMines ()
+    {
+        int count = 0;
+        for (int i = bits.length; --i >= 0; )
+        {
+            count += Long.bitCount (bits[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Clear the board and lay nmines mines, every placement being equally
+     * likely (Floyd's sampling method).
+     */
+    public void layMines (int nmines, MineRandom random)
+    {
+        layMines (nmines, random, new int [0], 0);
+    }
+
+    /**
+     * Clear the board and lay nmines mines, none of them in or next to
+     * the given cell, so that it opens an opening.  Every such placement
+     * is equally likely.
+     */
+    public void layMines (int nmines, MineRandom random, int row, int column)
+    {
+        // The cells kept clear, in increasing order.
+        int[] keep = new int [9];
+        int nkeep = 0;
+        int hiRow = Math.min (row + 1, rows - 1);
+        int hiCol = Math.min (column + 1, columns - 1);
+        for (int r = Math.max (row - 1, 0); r <= hiRow; ++r)
+        {
+            for (int c = Math.max (column - 1, 0); c <= hiCol; ++c)
+            {
+                keep[nkeep++] = r * columns + c;
+            }
+        }
+        layMines (nmines, random, keep, nkeep);
+    }
+
+    /**
+     * Floyd's sampling over the cells other than the nkeep cells listed,
+     * in increasing order, in keep.
+     */
+    private void layMines (int nmines, MineRandom random, int[] keep, int nkeep)
+    {
+        int ncells = rows * columns - nkeep;
+        if (nmines < 0 || nmines > ncells)
+        {
+            throw new IllegalArgumentException ();
+        }
+
+        clear ();
+        for (int j = ncells - nmines; j < ncells; ++j)
+        {
+            int index = skip (random.nextInt (j + 1), keep, nkeep);
+            int row = index / columns;
+            int column = index - (row * columns);
+            if (isMined (row, column))
+            {
+                index = skip (j, keep, nkeep);
+                row = index / columns;
+                column = index - (row * columns);
+            }
+            setMined (row, column, true);
+        }
+    }
+
+    /**
+     * The index of the i-th cell not listed in keep.
+     */
+    private static int skip (int i, int[] keep, int nkeep)
+    {
+        for (int k = 0; k < nkeep; ++k)
+        {
+            if (i >= keep[k])
+                ++i;
+        }
+        return i;
+    }
+
+    //---------------------------------------------------------------------
+    // Neighbor counts.
+    //---------------------------------------------------------------------
+
+    /**
+     * Compute the adjacent mine count of every cell in a row, as four bit
+     * planes: bit b of the count of column c is bit (c % 64) of
+     * counts[b * wordsPerRow + c / 64].
+     */
+    public void countNeighbors (int row, long[] counts)
+    {
+        long[] src = bits;
+        int wpr = wordsPerRow;
+        int above = (row - 1) * wpr;
+        int here = row * wpr;
+        int below = (row + 1) * wpr;
+        boolean hasAbove = row > 0;
+        boolean hasBelow = row + 1 < rows;
+
+        for (int k = 0; k < wpr; ++k)
+        {
+            // Three cells in a row above and below, two beside:
+            // sum each group as a 2-bit number.
+            long a = 0, aw = 0, ae = 0;
+            if (hasAbove)
+            {
+                a = src[above + k];
+                aw = west (src, above, k);
+                ae = east (src, above, k);
+            }
+            long b = 0, bw = 0, be = 0;
+            if (hasBelow)
+            {
+                b = src[below + k];
+                bw = west (src, below, k);
+                be = east (src, below, k);
+            }
+            long hw = west (src, here, k);
+            long he = east (src, here, k);
+
+            long x0 = a ^ aw ^ ae;
+            long x1 = (a & aw) | (ae & (a ^ aw));
+            long y0 = b ^ bw ^ be;
+            long y1 = (b & bw) | (be & (b ^ bw));
+            long p0 = hw ^ he;
+            long p1 = hw & he;
+
+            // Above plus below: 3 bits.
+            long s0 = x0 ^ y0;
+            long c0 = x0 & y0;
+            long s1 = x1 ^ y1 ^ c0;
+            long s2 = (x1 & y1) | (c0 & (x1 ^ y1));
+
+            // Plus beside: 4 bits.
+            long t0 = s0 ^ p0;
+            long d0 = s0 & p0;
+            long t1 = s1 ^ p1 ^ d0;
+            long d1 = (s1 & p1) | (d0 & (s1 ^ p1));
+            long t2 = s2 ^ d1;
+            long t3 = s2 & d1;
+
+            long mask = k == wpr - 1 ? lastWordMask : -1L;
+            counts[k] = t0 & mask;
+            counts[wpr + k] = t1 & mask;
+            counts[2 * wpr + k] = t2 & mask;
+            counts[3 * wpr + k] = t3 & mask;
+        }
+    }
+
+    /**
+     * Bit c is set if column c - 1 of the row starting at base is set.
+     */
+    private long west (long[] src, int base, int k)
+    {
+        long w = src[base + k] << 1;
+        if (k > 0)
+            w |= src[base + k - 1] >>> 63;
+        return w;
+    }
+
+    /**
+     * Bit c is set if column c + 1 of the row starting at base is set.
+     */
+    private long east (long[] src, int base, int k)
+    {
+        long w = src[base + k] >>> 1;
+        if (k + 1 < wordsPerRow)
+            w |= src[base + k + 1] << 63;
+        return w;
+    }
+
+    /**
+     * Compute the unmined cells having no adjacent mines, into one word
+     * per 64 cells, laid out like the mine bits.
+     */
+    public void findZeros (long[] zeros)
+    {
+        int wpr = wordsPerRow;
+        if (planes == null)
+        {
+            planes = new long [4 * wpr];
+        }
+
+        for (int row = 0; row < rows; ++row)
+        {
+            countNeighbors (row, planes);
+            for (int k = 0; k < wpr; ++k)
+            {
+                long any = planes[k] | planes[wpr + k] |
+                           planes[2 * wpr + k] | planes[3 * wpr + k];
+                long mask = k == wpr - 1 ? lastWordMask : -1L;
+                zeros[row * wpr + k] = ~any & ~bits[row * wpr + k] & mask;
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Analysis.
+    //---------------------------------------------------------------------
+
+    /**
+     * Count the openings: groups of connected zero cells, each of which
+     * is exposed in full by a single click.
+     */
+    public int countOpenings ()
+    {
+        long[] zeros = new long [bits.length];
+        findZeros (zeros);
+        return countOpenings (zeros);
+    }
+
+    /**
+     * Compute the 3BV of the board: the least number of clicks that
+     * clears it, being one per opening plus one per unmined cell that
+     * neither lies in an opening nor borders one.
+     */
+    public int compute3BV ()
+    {
+        int wpr = wordsPerRow;
+        long[] zeros = new long [bits.length];
+        findZeros (zeros);
+
+        int isolated = 0;
+        long[] near = new long [wpr];
+        for (int row = 0; row < rows; ++row)
+        {
+            // Zero cells in this row or the rows above and below...
+            for (int k = 0; k < wpr; ++k)
+            {
+                long v = zeros[row * wpr + k];
+                if (row > 0)
+                    v |= zeros[(row - 1) * wpr + k];
+                if (row + 1 < rows)
+                    v |= zeros[(row + 1) * wpr + k];
+                near[k] = v;
+            }
+
+            // ...spread by one column, cover every cell in or bordering
+            // an opening.
+            for (int k = 0; k < wpr; ++k)
+            {
+                long covered = near[k] | west (near, 0, k) | east (near, 0, k);
+                long mask = k == wpr - 1 ? lastWordMask : -1L;
+                isolated += Long.bitCount (~covered & ~bits[row * wpr + k]
+                                           & mask);
+            }
+        }
+
+        return countOpenings (zeros) + isolated;
+    }
+
+    /**
+     * Count 8-connected groups of set bits, by union-find over the runs
+     * of set bits in each row.
+     */
+    private int countOpenings (long[] zeros)
+    {
+        RunList previous = new RunList ();
+        RunList current = new RunList ();
+        int[] parent = new int [64];
+        int nruns = 0;
+        int unions = 0;
+
+        for (int row = 0; row < rows; ++row)
+        {
+            current.clear ();
+            int base = row * wordsPerRow;
+            int column = nextSetBit (zeros, base, 0);
+            while (column < columns)
+            {
+                int end = nextClearBit (zeros, base, column);
+                if (nruns == parent.length)
+                {
+                    int[] newParent = new int [parent.length * 2];
+                    System.arraycopy (parent, 0, newParent, 0, nruns);
+                    parent = newParent;
+                }
+                parent[nruns] = nruns;
+                current.add (column, end - 1, nruns++);
+                column = nextSetBit (zeros, base, end);
+            }
+
+            //
+            // Join each run with the runs of the previous row that touch
+            // it, including diagonally.
+            //
+            int j = 0;
+            for (int i = 0; i < current.size; ++i)
+            {
+                int start = current.starts[i];
+                int last = current.ends[i];
+                while (j < previous.size && previous.ends[j] < start - 1)
+                    ++j;
+                for (int p = j; p < previous.size &&
+                                previous.starts[p] <= last + 1; ++p)
+                {
+                    int a = find (parent, current.ids[i]);
+                    int b = find (parent, previous.ids[p]);
+                    if (a != b)
+                    {
+                        parent[a] = b;
+                        ++unions;
+                    }
+                }
+            }
+
+            RunList swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return nruns - unions;
+    }
+
+    private static int find (int[] parent, int i)
+    {
+        while (parent[i] != i)
+        {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private int nextSetBit (long[] words, int base, int column)
+    {
+        if (column >= columns)
+            return columns;
+        int k = column >>> 6;
+        long w = words[base + k] & (-1L << column);
+        while (w == 0)
+        {
+            if (++k == wordsPerRow)
+                return columns;
+            w = words[base + k];
+        }
+        return Math.min ((k << 6) + Long.numberOfTrailingZeros (w), columns);
+    }
+
+    private int nextClearBit (long[] words, int base, int column)
+    {
+        if (column >= columns)
+            return columns;
+        int k = column >>> 6;
+        long w = ~words[base + k] & (-1L << column);
+        while (w == 0)
+        {
+            if (++k == wordsPerRow)
+                return columns;
+            w = ~words[base + k];
+        }
+        return Math.min ((k << 6) + Long.numberOfTrailingZeros (w), columns);
+    }
+
+    /**
+     * The runs of set bits in one row: first and last column, and the
+     * union-find id of each.
+     */
+    private final static class RunList
+    {
+        int[] starts = new int [16];
+        int[] ends = new int [16];
+        int[] ids = new int [16];
+        int size;
+
+        void clear ()
+        {
+            size = 0;
+        }
+
+        void add (int start, int end, int id)
+        {
+            if (size == starts.length)
+            {
+                starts = Arrays.copyOf (starts, size * 2);
+                ends = Arrays.copyOf (ends, size * 2);
+                ids = Arrays.copyOf (ids, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            ids[size] = id;
+            ++size;
+        }
+    }
+}
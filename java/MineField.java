@@ -0,0 +1,877 @@
+/**
+ *  MineField.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.util.Arrays;
+
+/**
+ * The Gamekeeper.  Holds the rules of the game of Minesweeper, with no
+ * dependency on AWT, so that a game may be played by an applet or by a
+ * headless program alike.
+ * Class is declared final for performance reasons only.
+ *
+ * @version 3.0
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MineField
+{
+    // Tag constants:
+    public final static byte TAG_NULL = 0;      // covered, no tag
+    public final static byte TAG_FLAG = 1;      // covered, flagged
+    public final static byte TAG_QUES = 2;      // covered, marked '?'
+    public final static byte TAG_BOOM = 3;      // exposed, mined
+    public final static byte TAG_MINE = 4;      // auto-exposed, mined
+    public final static byte TAG_OOPS = 5;      // auto-exposed, wrongly flagged
+    public final static byte TAG_ZERO = 6;      // exposed, no adjacent mines
+    public final static byte TAG_ONE  = 7;      // exposed, 1 adjacent mine
+    public final static byte TAG_TWO  = 8;      // exposed, 2 adjacent mines
+    public final static byte TAG_THREE = 9;     // exposed, 3 adjacent mines
+    public final static byte TAG_FOUR = 10;     // exposed, 4 adjacent mines
+    public final static byte TAG_FIVE = 11;     // exposed, 5 adjacent mines
+    public final static byte TAG_SIX  = 12;     // exposed, 6 adjacent mines
+    public final static byte TAG_SEVEN = 13;    // exposed, 7 adjacent mines
+    public final static byte TAG_EIGHT = 14;    // exposed, 8 adjacent mines
+
+    //
+    // Each cell is one byte, row-major (index = row * columns + column):
+    // the tag in the low nibble, then the mine bit.
+    //
+    private final static int TAG_MASK = 0x0f;
+    private final static int MINE_BIT = 0x10;
+    private final static int MARK_BIT = 0x20;   // only within dropStaleFlags
+
+    // Dimensions:
+    private final int rows;
+    private final int columns;
+    private final int ncells;
+
+    // Game state:
+    private boolean marksQ = true;
+    private byte[] cells;
+    private byte[] adjacent;        // adjacent mine counts, two per byte
+    private byte[] adjacentFlags;   // adjacent flag counts, two per byte
+    private int exposedCount;
+    private int unminedCount;
+    private boolean lost;
+    private int counter;
+
+    private MineFieldListener listener;
+
+    // The mined cells, so that the end of a game touches only the mines
+    // and flags, not every cell.
+    private int[] mineCells = new int [0];
+    private int mineCount;
+
+    // The flagged cells, in no order.  A flag taken off is left in the
+    // list, as is a cell flagged again, so that unflagging costs nothing;
+    // readers skip the cells no longer flagged, and the list is rid of
+    // them when it fills.  Kept by tagCell.
+    private int[] flagCells = new int [64];
+    private int flagCount;
+
+    // The cells in need of repainting, one bit per cell, and one bit per
+    // word of those bits that has any bit set, so that the next dirty
+    // cell is found without scanning clean words one by one.
+    private long[] dirty;
+    private long[] dirtyWords;
+
+    // Work stack of cells (row * columns + column) whose neighbors remain
+    // to be exposed by rippleExpose.  Reused from one ripple to the next.
+    private int[] rippleStack = new int [64];
+    private int rippleCount;
+
+    private MineRandom random = new MineRandom ();
+
+    // Whether this game's mines were laid by random, rather than given on
+    // a board.
+    private boolean seeded;
+
+    public MineField (int rows, int columns)
+    {
+        //
+        // Determine number of available cells.
+        //
+        long product = (long) rows * (long) columns;
+        int ncells = (int) product;
+        if (product != ncells || ncells < 4)
+        {
+            // Zoicks!
+            throw new RuntimeException ();
+        }
+
+        this.rows = rows;
+        this.columns = columns;
+        this.ncells = ncells;
+        this.cells = new byte [ncells];
+        this.adjacent = new byte [(ncells + 1) / 2];
+        this.adjacentFlags = new byte [(ncells + 1) / 2];
+        this.dirty = new long [(ncells + 63) >> 6];
+        this.dirtyWords = new long [(dirty.length + 63) >> 6];
+    }
+
+    //---------------------------------------------------------------------
+    // Accessors.
+    //---------------------------------------------------------------------
+
+    public int getRows ()
+    {
+        return rows;
+    }
+
+    public int getColumns ()
+    {
+        return columns;
+    }
+
+    public void setListener (MineFieldListener listener)
+    {
+        this.listener = listener;
+    }
+
+    public MineFieldListener getListener ()
+    {
+        return listener;
+    }
+
+    public void setMarksQ (boolean marksQ)
+    {
+        this.marksQ = marksQ;
+    }
+
+    /**
+     * Restart the mine layout generator from the given seed, so that the
+     * games that follow can be reproduced.
+     */
+    public void setSeed (long seed)
+    {
+        random = new MineRandom (seed);
+    }
+
+    /**
+     * The seed the mine layout generator was last started from.
+     */
+    public long getSeed ()
+    {
+        return random.getSeed ();
+    }
+
+    /**
+     * Whether this game's mines were laid by the mine layout generator,
+     * rather than given on a board (such as a no-guess board), in which
+     * case the seed has nothing to do with them.
+     */
+    public boolean isSeeded ()
+    {
+        return seeded;
+    }
+
+    /**
+     * Use the given generator for mine layout, such as one split from a
+     * generator shared by several fields.
+     */
+    public void setRandom (MineRandom random)
+    {
+        this.random = random;
+    }
+
+    public byte getTag (int row, int column)
+    {
+        return (byte) tagOf (row * columns + column);
+    }
+
+    public boolean isMined (int row, int column)
+    {
+        return minedAt (row * columns + column);
+    }
+
+    /**
+     * The number of mines adjacent to the given cell, whether or not
+     * the cell has been exposed.
+     */
+    public int getAdjacentMineCount (int row, int column)
+    {
+        return adjacentAt (row * columns + column);
+    }
+
+    /**
+     * The number of flags adjacent to the given cell.
+     */
+    public int getAdjacentFlagCount (int row, int column)
+    {
+        return countAt (adjacentFlags, row * columns + column);
+    }
+
+    /**
+     * The number of mines less the number of flags, as shown by the
+     * counter display.
+     */
+    public int getCounter ()
+    {
+        return counter;
+    }
+
+    public int getExposedCount ()
+    {
+        return exposedCount;
+    }
+
+    public int getUnminedCount ()
+    {
+        return unminedCount;
+    }
+
+    public boolean cellIsExposed (int row, int column)
+    {
+        return exposedAt (row * columns + column);
+    }
+
+    public boolean gameIsWon ()
+    {
+        return exposedCount == unminedCount;
+    }
+
+    public boolean gameIsLost ()
+    {
+        return lost;
+    }
+
+    public boolean gameEnabled ()
+    {
+        return !gameIsWon () && !gameIsLost ();
+    }
+
+    //
+    // A dirty cell is one in need of repainting.  A cell is made dirty
+    // whenever its tag changes; the front end may also make it dirty,
+    // and makes it clean once the cell is painted.
+    //
+
+    public boolean isDirty (int row, int column)
+    {
+        int index = row * columns + column;
+        return (dirty[index >> 6] & (1L << index)) != 0;
+    }
+
+    public void setDirty (int row, int column)
+    {
+        markDirty (row * columns + column);
+    }
+
+    public void clearDirty (int row, int column)
+    {
+        int index = row * columns + column;
+        int word = index >> 6;
+        if ((dirty[word] &= ~(1L << index)) == 0)
+        {
+            dirtyWords[word >> 6] &= ~(1L << word);
+        }
+    }
+
+    /**
+     * The first dirty cell at or after index and before end, each as
+     * row * columns + column, or -1 if there is none.  The cost depends
+     * on the span searched, not on the size of the field, so that a
+     * front end may look for dirty cells row by row in a window.
+     */
+    public int nextDirtyCell (int index, int end)
+    {
+        if (index >= end)
+            return -1;
+
+        int word = index >> 6;
+        long bits = dirty[word] & (-1L << index);
+        if (bits == 0)
+        {
+            // Find the next word with any bit set.
+            int last = (end - 1) >> 6;
+            if (++word > last)
+                return -1;
+            int w = word >> 6;
+            long words = dirtyWords[w] & (-1L << word);
+            while (words == 0)
+            {
+                if (++w > (last >> 6))
+                    return -1;
+                words = dirtyWords[w];
+            }
+            word = (w << 6) + Long.numberOfTrailingZeros (words);
+            if (word > last)
+                return -1;
+            bits = dirty[word];
+        }
+
+        index = (word << 6) + Long.numberOfTrailingZeros (bits);
+        return index < end ? index : -1;
+    }
+
+    private void markDirty (int index)
+    {
+        int word = index >> 6;
+        dirty[word] |= 1L << index;
+        dirtyWords[word >> 6] |= 1L << word;
+    }
+
+    /**
+     * Set the first n bits, and clear the rest.
+     */
+    private static void setBits (long[] bits, int n)
+    {
+        Arrays.fill (bits, -1L);
+        if ((n & 63) != 0)
+        {
+            bits[bits.length - 1] = -1L >>> (64 - (n & 63));
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Cell storage.
+    //---------------------------------------------------------------------
+
+    private int tagOf (int index)
+    {
+        return cells[index] & TAG_MASK;
+    }
+
+    private boolean minedAt (int index)
+    {
+        return (cells[index] & MINE_BIT) != 0;
+    }
+
+    private boolean exposedAt (int index)
+    {
+        return (cells[index] & TAG_MASK) >= TAG_BOOM;
+    }
+
+    private int adjacentAt (int index)
+    {
+        return countAt (adjacent, index);
+    }
+
+    private static int countAt (byte[] counts, int index)
+    {
+        return (counts[index >> 1] >> ((index & 1) << 2)) & 0x0f;
+    }
+
+    private void tagCell (int index, int tag)
+    {
+        int cell = cells[index];
+        if ((cell & TAG_MASK) != tag)
+        {
+            if ((cell & TAG_MASK) == TAG_FLAG)
+            {
+                removeFlag (index);
+            }
+            else if (tag == TAG_FLAG)
+            {
+                addFlag (index);
+            }
+
+            cells[index] = (byte) ((cell & ~TAG_MASK) | tag);
+            markDirty (index);
+            if (listener != null)
+            {
+                listener.cellTagged (index / columns, index % columns);
+            }
+        }
+    }
+
+    private void addFlag (int index)
+    {
+        if (flagCount == flagCells.length)
+        {
+            dropStaleFlags ();
+            if (flagCount * 2 > flagCells.length)
+            {
+                int[] newCells = new int [Math.min (flagCells.length * 2,
+                                                    ncells)];
+                System.arraycopy (flagCells, 0, newCells, 0, flagCount);
+                flagCells = newCells;
+            }
+        }
+        flagCells[flagCount++] = index;
+        addAdjacent (adjacentFlags, index, 1);
+    }
+
+    private void removeFlag (int index)
+    {
+        // The cell stays in the list until dropStaleFlags.
+        addAdjacent (adjacentFlags, index, -1);
+    }
+
+    /**
+     * Rid the flag list of cells no longer flagged, and of cells listed
+     * more than once, marking each cell kept so as to know it again.
+     * Then no cell is listed twice, so the list, grown as need be, never
+     * fills without a flagged cell for every entry.
+     */
+    private void dropStaleFlags ()
+    {
+        int n = 0;
+        for (int i = 0; i < flagCount; ++i)
+        {
+            int index = flagCells[i];
+            int cell = cells[index];
+            if ((cell & TAG_MASK) == TAG_FLAG && (cell & MARK_BIT) == 0)
+            {
+                cells[index] = (byte) (cell | MARK_BIT);
+                flagCells[n++] = index;
+            }
+        }
+        for (int i = 0; i < n; ++i)
+        {
+            cells[flagCells[i]] &= ~MARK_BIT;
+        }
+        flagCount = n;
+    }
+
+    private void addMine (int index)
+    {
+        cells[index] |= MINE_BIT;
+        mineCells[mineCount++] = index;
+        addAdjacent (adjacent, index, 1);
+    }
+
+    //---------------------------------------------------------------------
+    // Game management.
+    //---------------------------------------------------------------------
+
+    public void newGame (int nmines)
+    {
+        clearGame ();
+
+        // Generate mine positions.
+        setupGame (nmines);
+    }
+
+    /**
+     * Start a new game with the mines laid out on the given board.
+     */
+    public void newGame (MineBitboard board)
+    {
+        clearGame ();
+        setupGame (board);
+    }
+
+    /**
+     * Clear all mines and tags, in place, leaving every cell dirty.  The
+     * listener is told once, rather than cell by cell.
+     */
+    private void clearGame ()
+    {
+        Arrays.fill (cells, (byte) 0);
+        Arrays.fill (adjacent, (byte) 0);
+        setBits (dirty, ncells);
+        setBits (dirtyWords, dirty.length);
+        Arrays.fill (adjacentFlags, (byte) 0);
+        flagCount = 0;
+        if (listener != null)
+        {
+            listener.gameCleared ();
+        }
+    }
+
+    public void setupGame (int nmines)
+    {
+        //
+        // Keep the number of mines reasonable.
+        //
+        if (nmines >= ncells)
+            nmines = ncells - 1;
+        if (nmines < 1)
+            nmines = 1;
+
+        if (mineCells.length < nmines)
+        {
+            mineCells = new int [nmines];
+        }
+        mineCount = 0;
+        layMines (nmines);
+        seeded = true;
+
+        exposedCount = 0;
+        unminedCount = ncells - nmines;
+        lost = false;
+        counter = nmines;
+    }
+
+    /**
+     * Set up a game with the mines laid out on the given board, which
+     * must have the same dimensions as this field.  Adjacent mine counts
+     * are taken from the board's bit-parallel neighbor counts.
+     */
+    public void setupGame (MineBitboard board)
+    {
+        if (board.getRows () != rows || board.getColumns () != columns)
+        {
+            throw new IllegalArgumentException ();
+        }
+
+        int nmines = board.countMines ();
+        if (nmines < 1 || nmines >= ncells)
+        {
+            throw new IllegalArgumentException ();
+        }
+        if (mineCells.length < nmines)
+        {
+            mineCells = new int [nmines];
+        }
+        mineCount = 0;
+        seeded = false;
+
+        int wpr = board.getWordsPerRow ();
+        long[] planes = new long [4 * wpr];
+        for (int row = 0; row < rows; ++row)
+        {
+            board.countNeighbors (row, planes);
+            int base = row * columns;
+            for (int k = 0; k < wpr; ++k)
+            {
+                long mines = board.getMineWord (row, k);
+                long b0 = planes[k];
+                long b1 = planes[wpr + k];
+                long b2 = planes[2 * wpr + k];
+                long b3 = planes[3 * wpr + k];
+                int limit = Math.min (64, columns - (k << 6));
+                for (int bit = 0; bit < limit; ++bit)
+                {
+                    int index = base + (k << 6) + bit;
+                    if (((mines >>> bit) & 1) != 0)
+                    {
+                        cells[index] |= MINE_BIT;
+                        mineCells[mineCount++] = index;
+                    }
+                    int count = (int) (((b0 >>> bit) & 1) |
+                                       (((b1 >>> bit) & 1) << 1) |
+                                       (((b2 >>> bit) & 1) << 2) |
+                                       (((b3 >>> bit) & 1) << 3));
+                    adjacent[index >> 1] |= count << ((index & 1) << 2);
+                }
+            }
+        }
+
+        exposedCount = 0;
+        unminedCount = ncells - nmines;
+        lost = false;
+        counter = nmines;
+    }
+
+    /**
+     * Lay mines by Floyd's sampling method, using the mine bits as the
+     * set of cells chosen so far: every set of nmines cells is equally
+     * likely, and the cost is proportional to the number of mines, not
+     * cells.
+     */
+    private void layMines (int nmines)
+    {
+        for (int j = ncells - nmines; j < ncells; ++j)
+        {
+            int index = random.nextInt (j + 1);
+            if (minedAt (index))
+            {
+                index = j;
+            }
+            addMine (index);
+        }
+    }
+
+    /**
+     * Move the mine from the given cell to a cell drawn uniformly from
+     * the unmined cells.
+     */
+    private void relocateMine (int oldIndex)
+    {
+        int newIndex;
+        do
+        {
+            newIndex = random.nextInt (ncells);
+        }
+        while (minedAt (newIndex));
+
+        cells[newIndex] |= MINE_BIT;
+        addAdjacent (adjacent, newIndex, 1);
+
+        cells[oldIndex] &= ~MINE_BIT;
+        addAdjacent (adjacent, oldIndex, -1);
+
+        for (int i = 0; i < mineCount; ++i)
+        {
+            if (mineCells[i] == oldIndex)
+            {
+                mineCells[i] = newIndex;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Add delta to the adjacent mine (or flag) count of each neighbor of
+     * a cell that has just been mined or flagged (1), or unmined or
+     * unflagged (-1).
+     */
+    private void addAdjacent (byte[] counts, int index, int delta)
+    {
+        int row = index / columns;
+        int column = index - (row * columns);
+
+        int lowRow = row - 1;
+        if (lowRow < 0) lowRow = 0;
+        int hiRow = row + 1;
+        if (hiRow >= rows) hiRow = rows - 1;
+
+        int lowCol = column - 1;
+        if (lowCol < 0) lowCol = 0;
+        int hiCol = column + 1;
+        if (hiCol >= columns) hiCol = columns - 1;
+
+        for (int r = lowRow; r <= hiRow; ++r)
+        {
+            for (int c = lowCol; c <= hiCol; ++c)
+            {
+                int i = r * columns + c;
+                if (i != index)
+                {
+                    // Counts never exceed 8, so never carry between nibbles.
+                    counts[i >> 1] += delta << ((i & 1) << 2);
+                }
+            }
+        }
+    }
+
+    public boolean rotateTagAt (int row, int column)
+    {
+        int index = row * columns + column;
+        int tag = tagOf (index);
+
+        switch (tag)
+        {
+        case TAG_NULL:
+            tag = TAG_FLAG;
+            counter -= 1;
+            break;
+        case TAG_FLAG:
+            tag = marksQ ? TAG_QUES : TAG_NULL;
+            counter += 1;
+            break;
+        case TAG_QUES:
+            tag = TAG_NULL;
+            break;
+        default:
+            return false;     // can't tag exposed cell
+        }
+
+        tagCell (index, tag);
+        return true;
+    }
+
+    public void exposeCellAt (int row, int column)
+    {
+        int index = row * columns + column;
+        if (exposedAt (index) || tagOf (index) == TAG_FLAG)
+            return;
+
+        if (exposedCount == 0 && minedAt (index))
+        {
+            // Don't allow the first exposed cell to be mined.
+            // Move that mine somewhere else.
+            relocateMine (index);
+        }
+
+        if (minedAt (index))
+        {
+            tagCell (index, TAG_BOOM);
+            lost = true;
+            showLoss ();
+        }
+        else
+        {
+            if (exposedCount == 0 && listener != null)
+            {
+                listener.gameStarted ();
+            }
+            ++exposedCount;
+
+            rippleExpose (index);
+
+            if (gameIsWon ())
+            {
+                showWin ();
+            }
+        }
+    }
+
+    /**
+     * Expose a cell that is known not to be mined, and if it has no
+     * adjacent mines, expose its neighbors, and so on.  The caller
+     * accounts for the given cell in exposedCount.
+     * Iterative rather than recursive, so that a large opening cannot
+     * overflow the stack.
+     */
+    private void rippleExpose (int index)
+    {
+        if (exposeSafeCell (index) != 0)
+            return;
+
+        rippleCount = 0;
+        pushRipple (index);
+
+        while (rippleCount > 0)
+        {
+            index = rippleStack[--rippleCount];
+            int row = index / columns;
+            int column = index - (row * columns);
+
+            int lowRow = row - 1;
+            if (lowRow < 0) lowRow = 0;
+            int hiRow = row + 2;
+            if (hiRow > rows) hiRow = rows;
+
+            int lowCol = column - 1;
+            if (lowCol < 0) lowCol = 0;
+            int hiCol = column + 2;
+            if (hiCol > columns) hiCol = columns;
+
+            for (int r = lowRow; r < hiRow; ++r)
+            {
+                for (int c = lowCol; c < hiCol; ++c)
+                {
+                    int i = r * columns + c;
+                    if (!exposedAt (i) && tagOf (i) != TAG_FLAG)
+                    {
+                        ++exposedCount;
+                        if (exposeSafeCell (i) == 0)
+                        {
+                            pushRipple (i);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tag an unmined cell with its adjacent mine count, and return the
+     * count.
+     */
+    private int exposeSafeCell (int index)
+    {
+        int nAdjMines = adjacentAt (index);
+        tagCell (index, TAG_ZERO + nAdjMines);
+        return nAdjMines;
+    }
+
+    private void pushRipple (int index)
+    {
+        if (rippleCount == rippleStack.length)
+        {
+            // Each cell is pushed at most once per ripple, so this grows
+            // no larger than the number of cells.
+            int[] newStack = new int [rippleStack.length * 2];
+            System.arraycopy (rippleStack, 0, newStack, 0, rippleCount);
+            rippleStack = newStack;
+        }
+        rippleStack[rippleCount++] = index;
+    }
+
+    private void showLoss ()
+    {
+        if (listener != null)
+        {
+            listener.gameEnded ();
+        }
+
+        // Expose all unflagged mines.
+        for (int i = 0; i < mineCount; ++i)
+        {
+            int index = mineCells[i];
+            int tag = tagOf (index);
+            if (tag != TAG_BOOM && tag != TAG_FLAG)
+            {
+                tagCell (index, TAG_MINE);
+            }
+        }
+
+        // Expose all wrong flags, passing over the cells no longer
+        // flagged (and those already exposed, if listed twice).
+        for (int i = 0; i < flagCount; ++i)
+        {
+            int index = flagCells[i];
+            if (tagOf (index) == TAG_FLAG && !minedAt (index))
+            {
+                tagCell (index, TAG_OOPS);
+            }
+        }
+    }
+
+    private void showWin ()
+    {
+        if (listener != null)
+        {
+            listener.gameEnded ();
+        }
+        counter = 0;
+
+        // update hi scores  NYI
+
+        // Every cell still covered is mined; flag them all.
+        for (int i = 0; i < mineCount; ++i)
+        {
+            int index = mineCells[i];
+            switch (tagOf (index))
+            {
+            case TAG_NULL:
+            case TAG_QUES:
+                tagCell (index, TAG_FLAG);
+            }
+        }
+    }
+
+    public void clearAround (int row, int column)
+    {
+        int index = row * columns + column;
+        int tag = tagOf (index);
+        if (tag <= TAG_ZERO || countAt (adjacentFlags, index) != tag - TAG_ZERO)
+            return;
+
+        int lowRow = row - 1;
+        if (lowRow < 0) lowRow = 0;
+        int hiRow = row + 1;
+        if (hiRow >= rows) hiRow = rows - 1;
+
+        int lowCol = column - 1;
+        if (lowCol < 0) lowCol = 0;
+        int hiCol = column + 1;
+        if (hiCol >= columns) hiCol = columns - 1;
+
+        for (int r = lowRow; r <= hiRow; ++r)
+        {
+            for (int c = lowCol; c <= hiCol; ++c)
+            {
+                int i = r * columns + c;
+                if (!exposedAt (i) && tagOf (i) != TAG_FLAG)
+                {
+                    if (minedAt (i))
+                    {
+                        tagCell (i, TAG_BOOM);
+                        lost = true;
+                    }
+                    else
+                    {
+                        ++exposedCount;
+                        rippleExpose (i);
+                    }
+                }
+            }
+        }
+
+        if (lost)
+        {
+            showLoss ();
+        }
+        else if (gameIsWon ())
+        {
+            showWin ();
+        }
+    }
+}
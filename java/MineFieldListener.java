@@ -0,0 +1,36 @@
+/**
+ *  MineFieldListener.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * Receives notice of changes in the state of a MineField.  The front end
+ * (an applet, a simulator) implements this to learn which cells need
+ * repainting and when the game clock should run.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public interface MineFieldListener
+{
+    /**
+     * The tag of the given cell has changed.
+     */
+    public void cellTagged (int row, int column);
+
+    /**
+     * Every cell has been covered and untagged, for a new game, and all
+     * of them need repainting.
+     */
+    public void gameCleared ();
+
+    /**
+     * The first cell has been exposed.
+     */
+    public void gameStarted ();
+
+    /**
+     * The game has been won or lost.
+     */
+    public void gameEnded ();
+}
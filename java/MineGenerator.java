@@ -0,0 +1,298 @@
+/**
+ *  MineGenerator.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates no-guess boards: boards that can be cleared by logic alone
+ * once the opening at their start cell is exposed.
+ *
+ * A candidate is laid out with no mines in or next to its start cell,
+ * set up on a MineField, and played by a MineSolver, with MineProbability
+ * to find any safe cell the solver's rules miss; it is accepted if the
+ * game is won without a guess.  Candidates are tried on several workers
+ * at once, and the first to succeed cancels the rest.  A background
+ * thread keeps a few boards ready, so that take() seldom waits.
+ * Boards are not reproducible from the seed, since which worker succeeds
+ * first depends on timing.
+ * Class is declared final for performance reasons only.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MineGenerator
+{
+    // Time spent searching for one board, by all workers together,
+    // before generate() gives up.  A time rather than a count of
+    // candidates, since a candidate costs more the larger the board.
+    private final static long SEARCH_MILLIS = 10000;
+
+    private final int rows;
+    private final int columns;
+    private final int nmines;
+    private final MineRandom random;
+    private final int nworkers;
+    private final ExecutorService executor;
+    private final BlockingQueue<Board> ready;
+    private final Thread producer;
+    private volatile boolean failed;
+
+    // Each worker thread's field, solver and probability engine.
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker> ()
+    {
+        protected Worker initialValue ()
+        {
+            return new Worker ();
+        }
+    };
+
+    /**
+     * Create a generator of boards of the given size, and start keeping
+     * nready of them ready.  There must be room for the mines outside the
+     * nine cells around a start cell.
+     */
+    public MineGenerator (int rows, int columns, int nmines,
+                          MineRandom random, int nready)
+    {
+        if (nmines < 1 || nmines > rows * columns - 9 || nready < 1)
+        {
+            throw new IllegalArgumentException ();
+        }
+
+        this.rows = rows;
+        this.columns = columns;
+        this.nmines = nmines;
+        this.random = random;
+        this.nworkers = Runtime.getRuntime ().availableProcessors ();
+        this.executor = Executors.newFixedThreadPool (nworkers,
+                                                      new Daemons ());
+        this.ready = new ArrayBlockingQueue<Board> (nready);
+
+        producer = new Daemons ().newThread (new Runnable ()
+        {
+            public void run ()
+            {
+                produce ();
+            }
+        });
+        producer.start ();
+    }
+
+    /**
+     * Take the next ready board, waiting for one if need be.  Returns null
+     * if no board can be found (the mines being too dense), or if the
+     * generator has been shut down.
+     */
+    public Board take ()
+    {
+        try
+        {
+            while (!failed)
+            {
+                Board board = ready.poll (100, TimeUnit.MILLISECONDS);
+                if (board != null)
+                    return board;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread ().interrupt ();
+        }
+        return null;
+    }
+
+    /**
+     * Stop generating boards.
+     */
+    public void shutdown ()
+    {
+        failed = true;
+        producer.interrupt ();
+        executor.shutdownNow ();
+    }
+
+    private void produce ()
+    {
+        try
+        {
+            while (!failed)
+            {
+                Board board = generate ();
+                if (board == null)
+                {
+                    failed = true;
+                    break;
+                }
+                ready.put (board);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Shut down.
+        }
+    }
+
+    /**
+     * Generate one board, trying candidates on all workers until one of
+     * them succeeds.  Returns null if none does within SEARCH_MILLIS.
+     */
+    public Board generate ()
+        throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis () + SEARCH_MILLIS;
+        List<Callable<Board>> searches = new ArrayList<Callable<Board>> ();
+        for (int i = 0; i < nworkers; ++i)
+        {
+            final MineRandom workerRandom;
+            synchronized (random)
+            {
+                workerRandom = random.split ();
+            }
+            searches.add (new Callable<Board> ()
+            {
+                public Board call ()
+                {
+                    return workers.get ().search (workerRandom, deadline);
+                }
+            });
+        }
+
+        try
+        {
+            return executor.invokeAny (searches);
+        }
+        catch (ExecutionException e)
+        {
+            // Every search gave up.
+            return null;
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Boards.
+    //---------------------------------------------------------------------
+
+    /**
+     * A no-guess layout of mines, and the cell to start from.
+     */
+    public final static class Board
+    {
+        private final MineBitboard mines;
+        private final int startRow;
+        private final int startColumn;
+
+        Board (MineBitboard mines, int startRow, int startColumn)
+        {
+            this.mines = mines;
+            this.startRow = startRow;
+            this.startColumn = startColumn;
+        }
+
+        public MineBitboard getMines ()
+        {
+            return mines;
+        }
+
+        public int getStartRow ()
+        {
+            return startRow;
+        }
+
+        public int getStartColumn ()
+        {
+            return startColumn;
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Workers.
+    //---------------------------------------------------------------------
+
+    private final class Worker
+    {
+        final MineField field = new MineField (rows, columns);
+        final MineSolver solver = new MineSolver (field);
+        final MineProbability probability = new MineProbability (solver);
+
+        /**
+         * Try candidates until one is solved, the search is cancelled,
+         * or the deadline passes.
+         */
+        Board search (MineRandom random, long deadline)
+        {
+            while (!Thread.currentThread ().isInterrupted () &&
+                   System.currentTimeMillis () < deadline)
+            {
+                int row = random.nextInt (rows);
+                int column = random.nextInt (columns);
+                MineBitboard mines = new MineBitboard (rows, columns);
+                mines.layMines (nmines, random, row, column);
+                if (solves (mines, row, column))
+                {
+                    return new Board (mines, row, column);
+                }
+            }
+            throw new IllegalStateException ();
+        }
+
+        /**
+         * Whether the board is cleared by logic alone from the start cell.
+         */
+        boolean solves (MineBitboard mines, int row, int column)
+        {
+            field.newGame (mines);
+            field.exposeCellAt (row, column);
+            while (field.gameEnabled ())
+            {
+                if (solver.solve () > 0)
+                    continue;
+
+                // Nothing the solver's rules can prove; expose any cell
+                // that cannot be mined at all.
+                if (!probability.compute ())
+                    return false;
+                boolean progress = false;
+                for (int r = 0; r < rows; ++r)
+                {
+                    for (int c = 0; c < columns; ++c)
+                    {
+                        if (probability.getProbability (r, c) == 0 &&
+                            !field.cellIsExposed (r, c))
+                        {
+                            field.exposeCellAt (r, c);
+                            progress = true;
+                        }
+                    }
+                }
+                if (!progress)
+                    return false;
+            }
+            return field.gameIsWon ();
+        }
+    }
+
+    /**
+     * Makes daemon threads, so that a generator never keeps the virtual
+     * machine alive.
+     */
+    private final static class Daemons implements ThreadFactory
+    {
+        public Thread newThread (Runnable runnable)
+        {
+            Thread thread = new Thread (runnable, "MineGenerator");
+            thread.setDaemon (true);
+            return thread;
+        }
+    }
+}
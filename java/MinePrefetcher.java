@@ -0,0 +1,142 @@
+/**
+ *  MinePrefetcher.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Keeps the next games set up in the background, so that starting a new
+ * game is a matter of swapping in a ready MineField, however large the
+ * board.
+ *
+ * A daemon thread sets up fields, each with its mines laid and, in
+ * no-guess mode, its opening exposed, and queues them.  Fields are set up
+ * with no listener; the taker installs its own.  Fields that are done
+ * with may be handed back for reuse, so that their arrays are not
+ * reallocated for every game.  An ordinary game's mines are laid from a
+ * seed drawn from the given generator, which the field then reports, so
+ * that the game may be reproduced.
+ * Class is declared final for performance reasons only.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MinePrefetcher
+{
+    private final int rows;
+    private final int columns;
+    private final int nmines;
+    private final MineRandom random;
+    private volatile MineGenerator generator;
+
+    private final BlockingQueue<MineField> ready;
+    private final BlockingQueue<MineField> spare;
+    private final Thread producer;
+
+    /**
+     * Start keeping nready games ready, of the given size, with no-guess
+     * boards from the generator if it is not null.
+     */
+    public MinePrefetcher (int rows, int columns, int nmines,
+                           MineRandom random, MineGenerator generator,
+                           int nready)
+    {
+        this.rows = rows;
+        this.columns = columns;
+        this.nmines = nmines;
+        this.random = random;
+        this.generator = generator;
+        this.ready = new ArrayBlockingQueue<MineField> (nready);
+        this.spare = new ArrayBlockingQueue<MineField> (nready + 1);
+
+        producer = new Thread (new Runnable ()
+        {
+            public void run ()
+            {
+                produce ();
+            }
+        }, "MinePrefetcher");
+        producer.setDaemon (true);
+        producer.start ();
+    }
+
+    /**
+     * Take the next ready game, or null if there is none yet (only if
+     * games are asked for faster than they can be set up, or the first
+     * no-guess board is still being searched for).  Never waits, so that
+     * the event thread may ask.
+     */
+    public MineField poll ()
+    {
+        return ready.poll ();
+    }
+
+    /**
+     * Hand back a field that is no longer played, for reuse.
+     */
+    public void recycle (MineField field)
+    {
+        if (field.getRows () == rows && field.getColumns () == columns)
+        {
+            field.setListener (null);
+            spare.offer (field);
+        }
+    }
+
+    /**
+     * Stop setting up games, and shut down the generator, if any.
+     */
+    public void shutdown ()
+    {
+        producer.interrupt ();
+        if (generator != null)
+        {
+            generator.shutdown ();
+        }
+    }
+
+    private void produce ()
+    {
+        try
+        {
+            while (!Thread.currentThread ().isInterrupted ())
+            {
+                MineField field = spare.poll ();
+                if (field == null)
+                {
+                    field = new MineField (rows, columns);
+                }
+                setUp (field);
+                ready.put (field);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Shut down.
+        }
+    }
+
+    private void setUp (MineField field)
+    {
+        if (generator != null)
+        {
+            MineGenerator.Board board = generator.take ();
+            if (board != null)
+            {
+                field.newGame (board.getMines ());
+                field.exposeCellAt (board.getStartRow (),
+                                    board.getStartColumn ());
+                return;
+            }
+
+            // No board to be had (too many mines): play ordinary boards.
+            generator.shutdown ();
+            generator = null;
+        }
+
+        field.setSeed (random.nextLong ());
+        field.newGame (nmines);
+    }
+}
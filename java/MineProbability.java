@@ -0,0 +1,825 @@
+/**
+ *  MineProbability.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the exact probability that each covered cell of a MineField is
+ * mined, given the exposed numbers, the flags (taken to be correct) and
+ * the number of mines left, as the counter shows it.
+ *
+ * The frontier, kept by a MineSolver, is divided into groups of cells
+ * next to the same numbers (any arrangement of a group's mines being as
+ * likely as any other), and the groups into components that share no
+ * numbers, which are independent but for the total number of mines.
+ * Each component's solutions are counted by the number of mines they
+ * use; large components are counted in parallel.  The counts are then
+ * combined with the number of ways of placing the remaining mines among
+ * the covered cells off the frontier, taken from a table of log
+ * factorials made once for the board.
+ * Class is declared final for performance reasons only.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MineProbability
+{
+    // Components with at least this many groups are counted in parallel.
+    private final static int PARALLEL_GROUPS = 12;
+
+    // CHOOSE[n][k]: the ways of placing k mines in a group of n cells.
+    // A group's cells are all next to one number, so n is at most 8.
+    private final static double[][] CHOOSE = new double [9][9];
+    static
+    {
+        for (int n = 0; n <= 8; ++n)
+        {
+            CHOOSE[n][0] = 1;
+            for (int k = 1; k <= n; ++k)
+            {
+                CHOOSE[n][k] = CHOOSE[n - 1][k - 1] +
+                               (k < n ? CHOOSE[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private final MineField field;
+    private final MineSolver solver;
+    private final int rows;
+    private final int columns;
+
+    // logFactorial[n] = log (n!), for n up to the number of cells.
+    private final double[] logFactorial;
+
+    // The probability of each cell, from the last compute().
+    private final double[] probability;
+
+    // Per compute: each number's constraint id plus one, by cell; and for
+    // each constraint, its cell, the mines it still needs among its
+    // unassigned cells, and the number of those.
+    private final int[] constraintOf;
+    private int[] constraintCell = new int [64];
+    private int[] need = new int [64];
+    private int[] open = new int [64];
+    private int nconstraints;
+
+    public MineProbability (MineSolver solver)
+    {
+        this.solver = solver;
+        this.field = solver.getField ();
+        this.rows = field.getRows ();
+        this.columns = field.getColumns ();
+
+        int ncells = rows * columns;
+        probability = new double [ncells];
+        constraintOf = new int [ncells];
+
+        logFactorial = new double [ncells + 1];
+        for (int n = 2; n <= ncells; ++n)
+        {
+            logFactorial[n] = logFactorial[n - 1] + Math.log (n);
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Accessors.
+    //---------------------------------------------------------------------
+
+    /**
+     * The probability that the given cell is mined, as of the last
+     * compute(): 0 for an exposed cell, 1 for a flagged one.
+     */
+    public double getProbability (int row, int column)
+    {
+        return probability[row * columns + column];
+    }
+
+    /**
+     * The covered, unflagged cell least likely to be mined, as
+     * row * columns + column, or -1 if there is none.
+     */
+    public int findSafest ()
+    {
+        int best = -1;
+        double p = 2;
+        for (int index = 0; index < probability.length; ++index)
+        {
+            int tag = field.getTag (index / columns, index % columns);
+            if (tag < MineField.TAG_BOOM && tag != MineField.TAG_FLAG &&
+                probability[index] < p)
+            {
+                best = index;
+                p = probability[index];
+            }
+        }
+        return best;
+    }
+
+    //---------------------------------------------------------------------
+    // Computation.
+    //---------------------------------------------------------------------
+
+    /**
+     * Compute the probability of every cell.  Returns false if the
+     * numbers, flags and counter cannot all be right, in which case the
+     * probabilities of the covered cells are left as NaN.
+     */
+    public boolean compute ()
+    {
+        int mines = field.getCounter ();
+        List<Group> groups = findGroups ();
+        Component[] components = findComponents (groups);
+
+        //
+        // Count each component's solutions, the large ones in parallel.
+        //
+        List<Component> parallel = new ArrayList<Component> ();
+        for (int i = 0; i < components.length; ++i)
+        {
+            components[i].maxMines = Math.max (mines, 0);
+            if (components[i].ngroups >= PARALLEL_GROUPS)
+                parallel.add (components[i]);
+            else
+                components[i].count ();
+        }
+        if (parallel.size () == 1)
+            parallel.get (0).count ();
+        else if (parallel.size () > 1)
+            ForkJoinTask.invokeAll (parallel);
+
+        //
+        // Ways of placing K mines on the frontier, all components
+        // together: prefix[i] convolves components 0 through i - 1,
+        // suffix[i] components i through the last.
+        //
+        int ncomponents = components.length;
+        double[][] prefix = new double [ncomponents + 1][];
+        double[][] suffix = new double [ncomponents + 1][];
+        prefix[0] = new double[] { 1 };
+        suffix[ncomponents] = new double[] { 1 };
+        for (int i = 0; i < ncomponents; ++i)
+        {
+            prefix[i + 1] = convolve (prefix[i], components[i].weights, mines);
+        }
+        for (int i = ncomponents; --i >= 0; )
+        {
+            suffix[i] = convolve (components[i].weights, suffix[i + 1], mines);
+        }
+
+        //
+        // Ways of placing the rest of the mines off the frontier, scaled
+        // to keep the products within range.
+        //
+        int ncovered = 0;
+        for (int index = probability.length; --index >= 0; )
+        {
+            int tag = field.getTag (index / columns, index % columns);
+            if (tag < MineField.TAG_BOOM && tag != MineField.TAG_FLAG)
+                ++ncovered;
+        }
+        int nfrontier = solver.getFrontierSize ();
+        int ninterior = ncovered - nfrontier;
+        double[] rest = restWeights (ninterior, mines);
+
+        double[] all = prefix[ncomponents];
+        double total = 0;
+        double interiorMines = 0;
+        for (int k = 0; k < all.length && k <= mines; ++k)
+        {
+            double w = all[k] * rest[k];
+            total += w;
+            interiorMines += w * (mines - k);
+        }
+
+        if (!(total > 0) || Double.isInfinite (total))
+        {
+            fill (Double.NaN, 0);
+            return false;
+        }
+
+        fill (ninterior > 0 ? interiorMines / total / ninterior : 0, 0);
+
+        //
+        // Each group's share, over the solutions of the other components.
+        //
+        for (int i = 0; i < ncomponents; ++i)
+        {
+            Component component = components[i];
+            double[] others = convolve (prefix[i], suffix[i + 1], mines);
+            int n = component.weights.length;
+            double[] weight = new double [n];
+            for (int k = 0; k < n; ++k)
+            {
+                double sum = 0;
+                for (int j = 0; j < others.length && k + j <= mines; ++j)
+                {
+                    sum += others[j] * rest[k + j];
+                }
+                weight[k] = sum;
+            }
+
+            for (int g = 0; g < component.ngroups; ++g)
+            {
+                Group group = component.groups[g];
+                double sum = 0;
+                for (int k = 0; k < n; ++k)
+                {
+                    sum += group.mines[k] * weight[k];
+                }
+                double p = sum / total / group.size;
+                for (int c = 0; c < group.size; ++c)
+                {
+                    probability[group.cells[c]] = p;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Set the probability of every covered cell to the given value, of
+     * every flagged cell to 1, and of every exposed cell to 0.
+     */
+    private void fill (double covered, double exposed)
+    {
+        for (int index = probability.length; --index >= 0; )
+        {
+            int tag = field.getTag (index / columns, index % columns);
+            if (tag == MineField.TAG_FLAG)
+                probability[index] = 1;
+            else if (tag < MineField.TAG_BOOM)
+                probability[index] = covered;
+            else
+                probability[index] = exposed;
+        }
+    }
+
+    /**
+     * rest[k]: the ways, up to a common factor, of placing mines - k
+     * mines among n cells.
+     */
+    private double[] restWeights (int n, int mines)
+    {
+        double[] rest = new double [Math.max (mines, 0) + 1];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k <= mines; ++k)
+        {
+            int r = mines - k;
+            if (r <= n)
+                max = Math.max (max, logChoose (n, r));
+        }
+        for (int k = 0; k <= mines; ++k)
+        {
+            int r = mines - k;
+            rest[k] = r <= n ? Math.exp (logChoose (n, r) - max) : 0;
+        }
+        return rest;
+    }
+
+    private double logChoose (int n, int k)
+    {
+        return logFactorial[n] - logFactorial[k] - logFactorial[n - k];
+    }
+
+    private static double[] convolve (double[] a, double[] b, int max)
+    {
+        int n = Math.max (Math.min (a.length + b.length - 1, max + 1), 1);
+        double[] c = new double [n];
+        for (int i = 0; i < a.length && i < n; ++i)
+        {
+            if (a[i] == 0)
+                continue;
+            for (int j = 0; j < b.length && i + j < n; ++j)
+            {
+                c[i + j] += a[i] * b[j];
+            }
+        }
+        return c;
+    }
+
+    //---------------------------------------------------------------------
+    // Groups and components.
+    //---------------------------------------------------------------------
+
+    /**
+     * Divide the frontier into groups of cells next to the same numbers,
+     * numbering the constraints as they are met.
+     */
+    private List<Group> findGroups ()
+    {
+        for (int i = 0; i < nconstraints; ++i)
+        {
+            constraintOf[constraintCell[i]] = 0;
+        }
+        nconstraints = 0;
+
+        HashMap<Signature,Group> bySignature = new HashMap<Signature,Group> ();
+        List<Group> groups = new ArrayList<Group> ();
+        int[] ids = new int [8];
+
+        int nfrontier = solver.getFrontierSize ();
+        for (int f = 0; f < nfrontier; ++f)
+        {
+            int index = solver.getFrontierCell (f);
+            int row = index / columns;
+            int column = index - (row * columns);
+
+            int n = 0;
+            int lowRow = Math.max (row - 1, 0);
+            int hiRow = Math.min (row + 1, rows - 1);
+            int lowCol = Math.max (column - 1, 0);
+            int hiCol = Math.min (column + 1, columns - 1);
+            for (int r = lowRow; r <= hiRow; ++r)
+            {
+                for (int c = lowCol; c <= hiCol; ++c)
+                {
+                    if (field.getTag (r, c) > MineField.TAG_ZERO)
+                        ids[n++] = constraintId (r, c);
+                }
+            }
+            Arrays.sort (ids, 0, n);
+
+            Signature signature = new Signature (Arrays.copyOf (ids, n));
+            Group group = bySignature.get (signature);
+            if (group == null)
+            {
+                group = new Group (signature.ids);
+                bySignature.put (signature, group);
+                groups.add (group);
+            }
+            group.cells[group.size++] = index;
+        }
+
+        for (int i = 0; i < groups.size (); ++i)
+        {
+            Group group = groups.get (i);
+            for (int j = 0; j < group.constraints.length; ++j)
+            {
+                open[group.constraints[j]] += group.size;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * The id of the constraint of the number at the given cell, numbering
+     * it if it is new.
+     */
+    private int constraintId (int row, int column)
+    {
+        int index = row * columns + column;
+        int id = constraintOf[index] - 1;
+        if (id >= 0)
+            return id;
+
+        if (nconstraints == need.length)
+        {
+            constraintCell = Arrays.copyOf (constraintCell, nconstraints * 2);
+            need = Arrays.copyOf (need, nconstraints * 2);
+            open = Arrays.copyOf (open, nconstraints * 2);
+        }
+        id = nconstraints++;
+        constraintOf[index] = id + 1;
+        constraintCell[id] = index;
+        open[id] = 0;
+
+        need[id] = field.getTag (row, column) - MineField.TAG_ZERO -
+                   field.getAdjacentFlagCount (row, column);
+        return id;
+    }
+
+    /**
+     * Gather the groups into components that share no constraints, each
+     * ordered breadth first, so that a constraint's groups come close
+     * together and it is settled early in the count.
+     */
+    private Component[] findComponents (List<Group> groups)
+    {
+        int ngroups = groups.size ();
+
+        // The groups of each constraint, as lists packed into one array.
+        int[] start = new int [nconstraints + 1];
+        for (int g = 0; g < ngroups; ++g)
+        {
+            int[] cs = groups.get (g).constraints;
+            for (int j = 0; j < cs.length; ++j)
+                ++start[cs[j] + 1];
+        }
+        for (int i = 0; i < nconstraints; ++i)
+        {
+            start[i + 1] += start[i];
+        }
+        int[] fill = Arrays.copyOf (start, nconstraints);
+        int[] members = new int [start[nconstraints]];
+        for (int g = 0; g < ngroups; ++g)
+        {
+            int[] cs = groups.get (g).constraints;
+            for (int j = 0; j < cs.length; ++j)
+                members[fill[cs[j]]++] = g;
+        }
+
+        boolean[] seen = new boolean [ngroups];
+        boolean[] seenConstraint = new boolean [nconstraints];
+        int[] queue = new int [ngroups];
+        List<Component> components = new ArrayList<Component> ();
+
+        for (int first = 0; first < ngroups; ++first)
+        {
+            if (seen[first])
+                continue;
+
+            int tail = breadthFirst (first, groups, start, members,
+                                     seen, seenConstraint, queue);
+
+            // Again, from the last group reached: from one end of the
+            // component, fewer constraints are open at once.
+            for (int i = 0; i < tail; ++i)
+            {
+                seen[queue[i]] = false;
+                int[] cs = groups.get (queue[i]).constraints;
+                for (int j = 0; j < cs.length; ++j)
+                    seenConstraint[cs[j]] = false;
+            }
+            tail = breadthFirst (queue[tail - 1], groups, start, members,
+                                 seen, seenConstraint, queue);
+
+            Group[] cg = new Group [tail];
+            for (int i = 0; i < tail; ++i)
+            {
+                cg[i] = groups.get (queue[i]);
+            }
+            components.add (new Component (cg));
+        }
+
+        return components.toArray (new Component [components.size ()]);
+    }
+
+    /**
+     * Queue the groups reached from the first through shared constraints,
+     * breadth first.  Returns the number queued.
+     */
+    private int breadthFirst (int first, List<Group> groups, int[] start,
+                              int[] members, boolean[] seen,
+                              boolean[] seenConstraint, int[] queue)
+    {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = first;
+        seen[first] = true;
+        while (head < tail)
+        {
+            int[] cs = groups.get (queue[head++]).constraints;
+            for (int j = 0; j < cs.length; ++j)
+            {
+                int c = cs[j];
+                if (seenConstraint[c])
+                    continue;
+                seenConstraint[c] = true;
+                for (int m = start[c]; m < start[c + 1]; ++m)
+                {
+                    if (!seen[members[m]])
+                    {
+                        seen[members[m]] = true;
+                        queue[tail++] = members[m];
+                    }
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Cells next to the same set of constraints.
+     */
+    private final static class Group
+    {
+        final int[] constraints;
+        final int[] cells = new int [8];
+        int size;
+
+        // During a count: the mines placed in the group.  After: mines[k],
+        // the total over solutions of k mines of the mines in the group,
+        // each solution counted by its ways.
+        int placed;
+        double[] mines;
+
+        Group (int[] constraints)
+        {
+            this.constraints = constraints;
+        }
+    }
+
+    /**
+     * Sorted constraint ids, as a hash key.
+     */
+    private final static class Signature
+    {
+        final int[] ids;
+        final int hash;
+
+        Signature (int[] ids)
+        {
+            this.ids = ids;
+            this.hash = Arrays.hashCode (ids);
+        }
+
+        public int hashCode ()
+        {
+            return hash;
+        }
+
+        public boolean equals (Object o)
+        {
+            return o instanceof Signature &&
+                   Arrays.equals (ids, ((Signature) o).ids);
+        }
+    }
+
+    /**
+     * Groups that share constraints only with each other.  Counting fills
+     * weights[k], the ways of placing k mines in the component, and each
+     * group's mines[k].
+     *
+     * The groups are taken in order, and the count is made layer by
+     * layer, where a layer's state is the mines still needed by the
+     * constraints that both earlier and later groups touch.  Solutions
+     * that agree on that state have the same completions, so the work
+     * grows with the number of states rather than of solutions.  A
+     * forward pass counts the ways to reach each state by the number of
+     * mines placed; a backward pass, the ways to complete it.
+     *
+     * Components have disjoint constraints, so they may be counted at
+     * once in the shared need and open arrays.
+     */
+    private final class Component extends RecursiveAction
+    {
+        final Group[] groups;
+        final int ngroups;
+        int maxMines;
+        double[] weights;
+
+        Component (Group[] groups)
+        {
+            this.groups = groups;
+            this.ngroups = groups.length;
+        }
+
+        protected void compute ()
+        {
+            count ();
+        }
+
+        void count ()
+        {
+            int ncells = 0;
+            for (int g = 0; g < ngroups; ++g)
+            {
+                ncells += groups[g].size;
+            }
+            int n = Math.min (ncells, maxMines) + 1;
+            for (int g = 0; g < ngroups; ++g)
+            {
+                groups[g].mines = new double [n];
+            }
+
+            //
+            // Forward: layer d holds the states before group d is filled.
+            //
+            List<State>[] layers = newLayers (ngroups + 1);
+            int[] active = new int [0];
+            State start = new State (new byte [0], n);
+            start.forward[0] = 1;
+            start.lo = 0;
+            start.hi = 0;
+            layers[0] = new ArrayList<State> ();
+            layers[0].add (start);
+
+            for (int d = 0; d < ngroups; ++d)
+            {
+                Group group = groups[d];
+                int[] cs = group.constraints;
+                int size = group.size;
+
+                for (int j = 0; j < cs.length; ++j)
+                {
+                    open[cs[j]] -= size;
+                }
+                int[] nextActive = nextActive (active, cs);
+
+                HashMap<State,State> next = new HashMap<State,State> ();
+                layers[d + 1] = new ArrayList<State> ();
+                byte[] needs = new byte [nextActive.length];
+                List<State> layer = layers[d];
+
+                for (int i = 0; i < layer.size (); ++i)
+                {
+                    State state = layer.get (i);
+                    for (int m = 0; m <= size && state.lo + m < n; ++m)
+                    {
+                        if (!place (state, active, cs, m, nextActive, needs))
+                            continue;
+
+                        State probe = new State (needs, 0);
+                        State target = next.get (probe);
+                        if (target == null)
+                        {
+                            target = new State (needs.clone (), n);
+                            next.put (target, target);
+                            layers[d + 1].add (target);
+                        }
+                        state.link (target, m);
+
+                        double ways = CHOOSE[size][m];
+                        double[] from = state.forward;
+                        double[] to = target.forward;
+                        int hi = Math.min (state.hi, n - 1 - m);
+                        for (int k = state.lo; k <= hi; ++k)
+                        {
+                            to[k + m] += from[k] * ways;
+                        }
+                        target.lo = Math.min (target.lo, state.lo + m);
+                        target.hi = Math.max (target.hi, hi + m);
+                    }
+                }
+
+                active = nextActive;
+            }
+
+            //
+            // Backward, and each group's share of the mines.
+            //
+            List<State> last = layers[ngroups];
+            for (int i = 0; i < last.size (); ++i)
+            {
+                last.get (i).backward[0] = 1;
+            }
+
+            for (int d = ngroups; --d >= 0; )
+            {
+                Group group = groups[d];
+                double[] mines = group.mines;
+                List<State> layer = layers[d];
+                for (int i = 0; i < layer.size (); ++i)
+                {
+                    State state = layer.get (i);
+                    double[] fw = state.forward;
+                    double[] bw = state.backward;
+                    for (int e = 0; e < state.nedges; ++e)
+                    {
+                        State target = state.targets[e];
+                        int m = state.placed[e];
+                        double ways = CHOOSE[group.size][m];
+                        double[] tb = target.backward;
+                        for (int j = 0; j + m < n; ++j)
+                        {
+                            if (tb[j] == 0)
+                                continue;
+                            double w = tb[j] * ways;
+                            bw[j + m] += w;
+                            if (m == 0)
+                                continue;
+                            for (int k = state.lo;
+                                 k <= state.hi && k + j + m < n; ++k)
+                            {
+                                mines[k + j + m] += fw[k] * w * m;
+                            }
+                        }
+                    }
+                }
+            }
+
+            weights = start.backward;
+        }
+
+        /**
+         * The constraints active after a group with the given constraints
+         * is filled: those active before or touched by the group, less
+         * those it closes.
+         */
+        private int[] nextActive (int[] active, int[] cs)
+        {
+            int[] next = new int [active.length + cs.length];
+            int n = 0;
+            for (int j = 0; j < active.length; ++j)
+            {
+                if (open[active[j]] > 0)
+                    next[n++] = active[j];
+            }
+            for (int j = 0; j < cs.length; ++j)
+            {
+                int c = cs[j];
+                if (open[c] > 0 && indexOf (active, c) < 0)
+                    next[n++] = c;
+            }
+            return Arrays.copyOf (next, n);
+        }
+
+        /**
+         * Place m mines in the group after the given state, storing in
+         * needs the mines then needed by the next layer's constraints.
+         * Returns false if some constraint cannot then be satisfied.
+         */
+        private boolean place (State state, int[] active, int[] cs, int m,
+                               int[] nextActive, byte[] needs)
+        {
+            // Constraints the group closes must be met exactly.
+            for (int j = 0; j < cs.length; ++j)
+            {
+                int c = cs[j];
+                if (open[c] == 0 && needBefore (state, active, c) != m)
+                    return false;
+            }
+            for (int j = 0; j < nextActive.length; ++j)
+            {
+                int c = nextActive[j];
+                int v = needBefore (state, active, c);
+                if (indexOf (cs, c) >= 0)
+                    v -= m;
+                if (v < 0 || v > open[c])
+                    return false;
+                needs[j] = (byte) v;
+            }
+            return true;
+        }
+
+        private int needBefore (State state, int[] active, int c)
+        {
+            int j = indexOf (active, c);
+            return j >= 0 ? state.needs[j] : need[c];
+        }
+    }
+
+    private static int indexOf (int[] a, int v)
+    {
+        for (int i = 0; i < a.length; ++i)
+        {
+            if (a[i] == v)
+                return i;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings ({ "unchecked", "rawtypes" })
+    private static List<State>[] newLayers (int n)
+    {
+        return (List<State>[]) new List [n];
+    }
+
+    /**
+     * One state of a layer of the count: the mines still needed by the
+     * active constraints, the ways to reach it and to complete it by
+     * number of mines, and its transitions to the next layer.
+     */
+    private final static class State
+    {
+        final byte[] needs;
+        final int hash;
+        final double[] forward;
+        final double[] backward;
+        int lo = Integer.MAX_VALUE;     // nonzero range of forward
+        int hi = -1;
+
+        State[] targets = new State [4];
+        int[] placed = new int [4];
+        int nedges;
+
+        State (byte[] needs, int n)
+        {
+            this.needs = needs;
+            this.hash = Arrays.hashCode (needs);
+            this.forward = new double [n];
+            this.backward = new double [n];
+        }
+
+        void link (State target, int m)
+        {
+            if (nedges == targets.length)
+            {
+                targets = Arrays.copyOf (targets, nedges * 2);
+                placed = Arrays.copyOf (placed, nedges * 2);
+            }
+            targets[nedges] = target;
+            placed[nedges] = m;
+            ++nedges;
+        }
+
+        public int hashCode ()
+        {
+            return hash;
+        }
+
+        public boolean equals (Object o)
+        {
+            return o instanceof State &&
+                   Arrays.equals (needs, ((State) o).needs);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ *  MineRandom.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * A seedable, splittable pseudo-random number generator (SplitMix64).
+ * The same seed yields the same sequence on every platform and release,
+ * so that a board may be reproduced from its seed.  split() derives an
+ * independent generator, so that parallel workers need not contend for
+ * one shared instance.  Instances are not thread-safe.
+ * Class is declared final for performance reasons only.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MineRandom
+{
+    private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long initialSeed;
+    private final long gamma;
+    private long seed;
+
+    /**
+     * Create a generator with a seed taken from the clock.
+     */
+    public MineRandom ()
+    {
+        this (mix64 (System.currentTimeMillis ()) ^
+              mix64 (System.nanoTime ()));
+    }
+
+    public MineRandom (long seed)
+    {
+        this (seed, GOLDEN_GAMMA);
+    }
+
+    private MineRandom (long seed, long gamma)
+    {
+        this.initialSeed = seed;
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * The seed this generator was created with.
+     */
+    public long getSeed ()
+    {
+        return initialSeed;
+    }
+
+    /**
+     * Derive a new generator whose sequence is independent of this one's.
+     * Advances this generator.
+     */
+    public MineRandom split ()
+    {
+        return new MineRandom (nextLong (), mixGamma (nextSeed ()));
+    }
+
+    public long nextLong ()
+    {
+        return mix64 (nextSeed ());
+    }
+
+    public int nextInt ()
+    {
+        return mix32 (nextSeed ());
+    }
+
+    /**
+     * A value drawn uniformly from 0 (inclusive) to bound (exclusive).
+     */
+    public int nextInt (int bound)
+    {
+        if (bound <= 0)
+        {
+            throw new IllegalArgumentException ();
+        }
+
+        int r = mix32 (nextSeed ());
+        int m = bound - 1;
+        if ((bound & m) == 0)
+        {
+            // Power of two.
+            return r & m;
+        }
+
+        // Reject values from the incomplete last interval, which would
+        // favor the low numbers.
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; )
+        {
+            u = mix32 (nextSeed ()) >>> 1;
+        }
+        return r;
+    }
+
+    public boolean nextBoolean ()
+    {
+        return mix32 (nextSeed ()) < 0;
+    }
+
+    public double nextDouble ()
+    {
+        return (nextLong () >>> 11) * 0x1.0p-53;
+    }
+
+    private long nextSeed ()
+    {
+        return seed += gamma;
+    }
+
+    private static long mix64 (long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32 (long z)
+    {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma (long z)
+    {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        // Avoid gammas with too few bit transitions.
+        int n = Long.bitCount (z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,521 @@
+/**
+ *  MineSolver.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * Deduces safe cells and certain mines from the numbers exposed on a
+ * MineField, and plays them through exposeCellAt and rotateTagAt.
+ *
+ * Each exposed number is a constraint: its covered, unflagged neighbors
+ * hold its count less its adjacent flags.  A constraint is settled alone
+ * when that is none or all of them, and in pairs when two overlapping
+ * constraints leave only one way to fill the cells they do not share.
+ * Flags are taken to be correct.
+ *
+ * The solver listens to the field (passing every notice on to the
+ * listener the field had before), and as cells change it keeps up to
+ * date the frontier (the covered, unflagged cells next to exposed
+ * numbers) and the list of constraints that have changed since they were
+ * last examined.  A deduction examines only those, never the whole board.
+ * Class is declared final for performance reasons only.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MineSolver implements MineFieldListener
+{
+    private final static byte SAFE = 1;
+    private final static byte MINED = 2;
+
+    private final MineField field;
+    private final MineFieldListener next;
+    private final int rows;
+    private final int columns;
+
+    // Frontier cells (row * columns + column), in no particular order.
+    // frontierPos holds each cell's position in frontier plus one, or zero
+    // if the cell is not on the frontier.
+    private final int[] frontier;
+    private final int[] frontierPos;
+    private int frontierSize;
+
+    // Exposed numbers whose constraints have changed.
+    private final int[] work;
+    private final boolean[] queued;
+    private int workCount;
+
+    // Deductions not yet played, and the verdict on each cell.
+    private final int[] found;
+    private final byte[] verdict;
+    private int foundCount;
+
+    // The covered, unflagged neighbors of the constraints being examined.
+    private final int[] cellsA = new int [8];
+    private final int[] cellsB = new int [8];
+    private int count;      // cells found by the last call to need()
+
+    /**
+     * Create a solver for the given field, and make it the field's
+     * listener.
+     */
+    public MineSolver (MineField field)
+    {
+        this.field = field;
+        this.next = field.getListener ();
+        this.rows = field.getRows ();
+        this.columns = field.getColumns ();
+
+        int ncells = rows * columns;
+        frontier = new int [ncells];
+        frontierPos = new int [ncells];
+        work = new int [ncells];
+        queued = new boolean [ncells];
+        found = new int [ncells];
+        verdict = new byte [ncells];
+
+        field.setListener (this);
+        rescan ();
+    }
+
+    /**
+     * Stop listening to the field, restoring its previous listener.
+     */
+    public void detach ()
+    {
+        field.setListener (next);
+    }
+
+    //---------------------------------------------------------------------
+    // Accessors.
+    //---------------------------------------------------------------------
+
+    public MineField getField ()
+    {
+        return field;
+    }
+
+    public int getFrontierSize ()
+    {
+        return frontierSize;
+    }
+
+    /**
+     * The i-th frontier cell, as row * columns + column.
+     */
+    public int getFrontierCell (int i)
+    {
+        return frontier[i];
+    }
+
+    /**
+     * The number of deductions found and not yet played.
+     */
+    public int getFoundCount ()
+    {
+        return foundCount;
+    }
+
+    /**
+     * The i-th deduction's cell, as row * columns + column.
+     */
+    public int getFoundCell (int i)
+    {
+        return found[i];
+    }
+
+    /**
+     * Whether the i-th deduction is a mine, rather than a safe cell.
+     */
+    public boolean isFoundMine (int i)
+    {
+        return verdict[found[i]] == MINED;
+    }
+
+    //---------------------------------------------------------------------
+    // Solving.
+    //---------------------------------------------------------------------
+
+    /**
+     * Examine the constraints that have changed, adding what they prove
+     * to the deductions.  Returns the number of deductions now pending.
+     */
+    public int deduce ()
+    {
+        while (workCount > 0)
+        {
+            int index = work[--workCount];
+            queued[index] = false;
+            examine (index);
+        }
+        return foundCount;
+    }
+
+    /**
+     * Play the pending deductions: expose the safe cells and flag the
+     * mines.  Returns the number of moves made.
+     */
+    public int play ()
+    {
+        int moves = 0;
+        for (int i = 0; i < foundCount; ++i)
+        {
+            int index = found[i];
+            byte v = verdict[index];
+            verdict[index] = 0;
+            if (!field.gameEnabled ())
+                continue;
+
+            int row = index / columns;
+            int column = index - (row * columns);
+            int tag = field.getTag (row, column);
+            if (tag == MineField.TAG_FLAG || tag >= MineField.TAG_BOOM)
+                continue;
+
+            if (v == SAFE)
+            {
+                field.exposeCellAt (row, column);
+            }
+            else
+            {
+                while (field.getTag (row, column) != MineField.TAG_FLAG)
+                {
+                    field.rotateTagAt (row, column);
+                }
+            }
+            ++moves;
+        }
+        foundCount = 0;
+        return moves;
+    }
+
+    /**
+     * Deduce and play until nothing more can be proven.  Returns the
+     * number of moves made.
+     */
+    public int solve ()
+    {
+        int moves = 0;
+        while (field.gameEnabled () && deduce () > 0)
+        {
+            moves += play ();
+        }
+        return moves;
+    }
+
+    /**
+     * Apply the rules to the constraint of the given cell, alone and
+     * paired with each constraint near enough to share cells with it.
+     */
+    private void examine (int a)
+    {
+        int rowA = a / columns;
+        int colA = a - (rowA * columns);
+        int needA = need (rowA, colA, cellsA);
+        if (needA < 0)
+            return;
+        int nA = count;
+        if (nA == 0)
+            return;
+
+        if (needA == 0 || needA == nA)
+        {
+            byte v = needA == 0 ? SAFE : MINED;
+            for (int i = 0; i < nA; ++i)
+            {
+                mark (cellsA[i], v);
+            }
+            return;
+        }
+
+        int lowRow = Math.max (rowA - 2, 0);
+        int hiRow = Math.min (rowA + 2, rows - 1);
+        int lowCol = Math.max (colA - 2, 0);
+        int hiCol = Math.min (colA + 2, columns - 1);
+
+        for (int rowB = lowRow; rowB <= hiRow; ++rowB)
+        {
+            for (int colB = lowCol; colB <= hiCol; ++colB)
+            {
+                if (rowB == rowA && colB == colA)
+                    continue;
+                int needB = need (rowB, colB, cellsB);
+                if (needB < 0)
+                    continue;
+                int nB = count;
+
+                int shared = 0;
+                for (int i = 0; i < nB; ++i)
+                {
+                    if (isAdjacent (cellsB[i], rowA, colA))
+                        ++shared;
+                }
+                if (shared == 0)
+                    continue;
+
+                //
+                // If A needs as many more mines than B as it has cells of
+                // its own, then its own cells are all mined, and B's own
+                // cells all safe; and the other way round.
+                //
+                int onlyA = nA - shared;
+                int onlyB = nB - shared;
+                if (needA - needB == onlyA)
+                {
+                    settle (cellsA, nA, rowB, colB, MINED);
+                    settle (cellsB, nB, rowA, colA, SAFE);
+                }
+                else if (needB - needA == onlyB)
+                {
+                    settle (cellsB, nB, rowA, colA, MINED);
+                    settle (cellsA, nA, rowB, colB, SAFE);
+                }
+            }
+        }
+    }
+
+    /**
+     * If the given cell is an exposed number, store its covered, unflagged
+     * neighbors in cells (and their number in count), and return the
+     * number of mines among them.  Otherwise return -1.
+     */
+    private int need (int row, int column, int[] cells)
+    {
+        int tag = field.getTag (row, column);
+        if (tag <= MineField.TAG_ZERO)
+            return -1;
+
+        int need = tag - MineField.TAG_ZERO;
+        int n = 0;
+
+        int lowRow = Math.max (row - 1, 0);
+        int hiRow = Math.min (row + 1, rows - 1);
+        int lowCol = Math.max (column - 1, 0);
+        int hiCol = Math.min (column + 1, columns - 1);
+
+        for (int r = lowRow; r <= hiRow; ++r)
+        {
+            for (int c = lowCol; c <= hiCol; ++c)
+            {
+                int t = field.getTag (r, c);
+                if (t == MineField.TAG_FLAG)
+                    --need;
+                else if (t < MineField.TAG_BOOM)
+                    cells[n++] = r * columns + c;
+            }
+        }
+
+        count = n;
+        return need;
+    }
+
+    /**
+     * Give the verdict to each of the cells not adjacent to the given
+     * cell.
+     */
+    private void settle (int[] cells, int n, int row, int column, byte v)
+    {
+        for (int i = 0; i < n; ++i)
+        {
+            if (!isAdjacent (cells[i], row, column))
+                mark (cells[i], v);
+        }
+    }
+
+    private boolean isAdjacent (int index, int row, int column)
+    {
+        int r = index / columns;
+        int c = index - (r * columns);
+        return r - row <= 1 && row - r <= 1 && c - column <= 1 && column - c <= 1;
+    }
+
+    private void mark (int index, byte v)
+    {
+        if (verdict[index] == 0)
+        {
+            verdict[index] = v;
+            found[foundCount++] = index;
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Tracking the field.
+    //---------------------------------------------------------------------
+
+    public void cellTagged (int row, int column)
+    {
+        int index = row * columns + column;
+        int tag = field.getTag (row, column);
+
+        if (tag >= MineField.TAG_BOOM || tag == MineField.TAG_FLAG)
+        {
+            removeFrontier (index);
+        }
+        else if (nextToNumber (row, column))
+        {
+            addFrontier (index);
+        }
+        else
+        {
+            removeFrontier (index);
+        }
+
+        int lowRow = Math.max (row - 1, 0);
+        int hiRow = Math.min (row + 1, rows - 1);
+        int lowCol = Math.max (column - 1, 0);
+        int hiCol = Math.min (column + 1, columns - 1);
+
+        for (int r = lowRow; r <= hiRow; ++r)
+        {
+            for (int c = lowCol; c <= hiCol; ++c)
+            {
+                int i = r * columns + c;
+                int t = field.getTag (r, c);
+                if (t > MineField.TAG_ZERO)
+                {
+                    // This number's constraint has changed.
+                    enqueue (i);
+                }
+                else if (i == index || t >= MineField.TAG_BOOM ||
+                         t == MineField.TAG_FLAG)
+                {
+                    continue;
+                }
+                else if (tag > MineField.TAG_ZERO)
+                {
+                    // A neighbor of a newly exposed number.
+                    addFrontier (i);
+                }
+            }
+        }
+
+        if (next != null)
+        {
+            next.cellTagged (row, column);
+        }
+    }
+
+    public void gameCleared ()
+    {
+        clear ();
+        if (next != null)
+        {
+            next.gameCleared ();
+        }
+    }
+
+    public void gameStarted ()
+    {
+        clear ();
+        if (next != null)
+        {
+            next.gameStarted ();
+        }
+    }
+
+    public void gameEnded ()
+    {
+        if (next != null)
+        {
+            next.gameEnded ();
+        }
+    }
+
+    private boolean nextToNumber (int row, int column)
+    {
+        int lowRow = Math.max (row - 1, 0);
+        int hiRow = Math.min (row + 1, rows - 1);
+        int lowCol = Math.max (column - 1, 0);
+        int hiCol = Math.min (column + 1, columns - 1);
+
+        for (int r = lowRow; r <= hiRow; ++r)
+        {
+            for (int c = lowCol; c <= hiCol; ++c)
+            {
+                if (field.getTag (r, c) > MineField.TAG_ZERO)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private void addFrontier (int index)
+    {
+        if (frontierPos[index] == 0)
+        {
+            frontier[frontierSize++] = index;
+            frontierPos[index] = frontierSize;
+        }
+    }
+
+    private void removeFrontier (int index)
+    {
+        int pos = frontierPos[index];
+        if (pos != 0)
+        {
+            // Move the last cell into the hole.
+            int last = frontier[--frontierSize];
+            frontier[pos - 1] = last;
+            frontierPos[last] = pos;
+            frontierPos[index] = 0;
+        }
+    }
+
+    private void enqueue (int index)
+    {
+        if (!queued[index])
+        {
+            queued[index] = true;
+            work[workCount++] = index;
+        }
+    }
+
+    /**
+     * Forget everything, as at the start of a game.
+     */
+    private void clear ()
+    {
+        for (int i = 0; i < frontierSize; ++i)
+        {
+            frontierPos[frontier[i]] = 0;
+        }
+        frontierSize = 0;
+
+        for (int i = 0; i < workCount; ++i)
+        {
+            queued[work[i]] = false;
+        }
+        workCount = 0;
+
+        for (int i = 0; i < foundCount; ++i)
+        {
+            verdict[found[i]] = 0;
+        }
+        foundCount = 0;
+    }
+
+    /**
+     * Rebuild the frontier and queue every number, for a game already
+     * under way.
+     */
+    private void rescan ()
+    {
+        clear ();
+        for (int row = 0; row < rows; ++row)
+        {
+            for (int column = 0; column < columns; ++column)
+            {
+                int tag = field.getTag (row, column);
+                if (tag > MineField.TAG_ZERO)
+                {
+                    enqueue (row * columns + column);
+                }
+                else if (tag < MineField.TAG_BOOM && tag != MineField.TAG_FLAG &&
+                         nextToNumber (row, column))
+                {
+                    addFrontier (row * columns + column);
+                }
+            }
+        }
+    }
+}
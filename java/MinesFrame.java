@@ -0,0 +1,489 @@
+/**
+ *  MinesFrame.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.applet.Applet;
+import java.applet.AppletContext;
+import java.applet.AppletStub;
+import java.applet.AudioClip;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferStrategy;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Plays the game in a window of its own, outside the browser.
+ *
+ * The window hosts a MinesApplet, given its parameters from the command
+ * line, but does not show it as a component: a render thread paints the
+ * applet into the window's BufferStrategy once a frame, and the window
+ * hands its mouse and key events on to the applet as the old style events
+ * the applet handles.  The applet keeps its back buffer in an accelerated
+ * VolatileImage, so that a frame is mostly a copy on the graphics card.
+ * With -stats, the count, mean and longest time of the frames painted are
+ * printed each second.
+ *
+ * Usage: java MinesFrame [-rows n] [-columns n] [-nmines n]
+ *                        [-viewRows n] [-viewColumns n] [-zoom n]
+ *                        [-seed n] [-marksQ true|false] [-noguess]
+ *                        [-stats]
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MinesFrame extends Frame
+{
+    // Time between frames:
+    private final static long FRAME_MILLIS = 16;
+
+    // Frames in a row that may fail before the window is closed:
+    private final static int MAX_FAILED_FRAMES = 60;
+
+    private final MinesApplet applet;
+    private final boolean stats;
+    private final Insets insets;
+    private final Dimension size;
+    private BufferStrategy strategy;
+    private volatile boolean running;
+
+    // Frame times, over the current second:
+    private int frames;
+    private long frameNanos;
+    private long maxFrameNanos;
+    private long second;
+
+    // Paints one frame, on the event thread, where the applet's events
+    // are handled.
+    private final Runnable render = new Runnable ()
+    {
+        public void run ()
+        {
+            renderFrame ();
+        }
+    };
+
+    public MinesFrame (Map<String,String> parameters, boolean stats)
+    {
+        super ("Mines");
+        this.stats = stats;
+
+        applet = createApplet (parameters);
+        applet.init ();
+
+        setResizable (false);
+        setIgnoreRepaint (true);
+        setBackground (Color.lightGray);
+        enableEvents (AWTEvent.MOUSE_EVENT_MASK |
+                      AWTEvent.MOUSE_MOTION_EVENT_MASK |
+                      AWTEvent.KEY_EVENT_MASK |
+                      AWTEvent.WINDOW_EVENT_MASK);
+
+        // Size the window to the applet's panel.
+        addNotify ();
+        insets = getInsets ();
+        size = applet.getPreferredSize ();
+        setSize (size.width + insets.left + insets.right,
+                 size.height + insets.top + insets.bottom);
+    }
+
+    /**
+     * Show the window, and start the game and the render thread.
+     */
+    public void start ()
+    {
+        setVisible (true);
+        createBufferStrategy (2);
+        strategy = getBufferStrategy ();
+        applet.start ();
+
+        running = true;
+        second = System.currentTimeMillis () + 1000;
+        Thread renderer = new Thread (new Runnable ()
+        {
+            public void run ()
+            {
+                renderLoop ();
+            }
+        }, "MinesFrame renderer");
+        renderer.setDaemon (true);
+        renderer.start ();
+    }
+
+    /**
+     * Stop the render thread and the game, and close the window.
+     */
+    public void close ()
+    {
+        running = false;
+        applet.stop ();
+        applet.destroy ();
+        dispose ();
+    }
+
+    //---------------------------------------------------------------------
+    // Rendering.
+    //---------------------------------------------------------------------
+
+    /**
+     * Paint a frame each FRAME_MILLIS until closed.  A frame that fails
+     * is reported, and the next one painted as usual; if every frame
+     * fails for MAX_FAILED_FRAMES in a row, the game cannot go on, and
+     * the window is closed.
+     */
+    private void renderLoop ()
+    {
+        long next = System.currentTimeMillis ();
+        int failed = 0;
+        try
+        {
+            while (running)
+            {
+                try
+                {
+                    EventQueue.invokeAndWait (render);
+                    failed = 0;
+                }
+                catch (InvocationTargetException e)
+                {
+                    System.err.println ("MinesFrame: frame failed");
+                    e.getCause ().printStackTrace ();
+                    if (++failed >= MAX_FAILED_FRAMES)
+                    {
+                        System.err.println ("MinesFrame: closing after " +
+                                            failed + " failed frames");
+                        EventQueue.invokeLater (new Runnable ()
+                        {
+                            public void run ()
+                            {
+                                close ();
+                            }
+                        });
+                        return;
+                    }
+                }
+
+                long now = System.currentTimeMillis ();
+                next = Math.max (next + FRAME_MILLIS, now);
+                Thread.sleep (next - now);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Shut down.
+        }
+    }
+
+    /**
+     * Paint the applet into the next buffer and show it, again if the
+     * buffer is lost on the way.
+     */
+    private void renderFrame ()
+    {
+        if (!running || !isDisplayable ())
+            return;
+
+        long start = System.nanoTime ();
+        do
+        {
+            do
+            {
+                Graphics g = strategy.getDrawGraphics ();
+                try
+                {
+                    g.translate (insets.left, insets.top);
+                    g.clipRect (0, 0, size.width, size.height);
+                    applet.paint (g);
+                }
+                finally
+                {
+                    g.dispose ();
+                }
+            }
+            while (strategy.contentsRestored ());
+            strategy.show ();
+        }
+        while (strategy.contentsLost ());
+        Toolkit.getDefaultToolkit ().sync ();
+
+        long nanos = System.nanoTime () - start;
+        ++frames;
+        frameNanos += nanos;
+        maxFrameNanos = Math.max (maxFrameNanos, nanos);
+
+        long now = System.currentTimeMillis ();
+        if (stats && now >= second)
+        {
+            System.out.printf ("frames %3d, mean %6.3f ms, max %6.3f ms%n",
+                               frames, frameNanos / 1e6 / frames,
+                               maxFrameNanos / 1e6);
+            frames = 0;
+            frameNanos = 0;
+            maxFrameNanos = 0;
+            second = now + 1000;
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Event handling.
+    //---------------------------------------------------------------------
+
+    /**
+     * Hand mouse events on to the applet, in its own coordinates.  The
+     * old style modifiers are those of the new events, the right button
+     * showing as the meta key, as the applet expects.
+     */
+    protected void processMouseEvent (MouseEvent e)
+    {
+        switch (e.getID ())
+        {
+        case MouseEvent.MOUSE_PRESSED:
+            postToApplet (e, Event.MOUSE_DOWN, 0);
+            break;
+        case MouseEvent.MOUSE_RELEASED:
+            postToApplet (e, Event.MOUSE_UP, 0);
+            break;
+        }
+        super.processMouseEvent (e);
+    }
+
+    protected void processMouseMotionEvent (MouseEvent e)
+    {
+        switch (e.getID ())
+        {
+        case MouseEvent.MOUSE_MOVED:
+            postToApplet (e, Event.MOUSE_MOVE, 0);
+            break;
+        case MouseEvent.MOUSE_DRAGGED:
+            postToApplet (e, Event.MOUSE_DRAG, 0);
+            break;
+        }
+        super.processMouseMotionEvent (e);
+    }
+
+    /**
+     * Hand the keys the applet scrolls and zooms by on to it.
+     */
+    protected void processKeyEvent (KeyEvent e)
+    {
+        if (e.getID () == KeyEvent.KEY_TYPED)
+        {
+            char c = e.getKeyChar ();
+            if (c == '+' || c == '=' || c == '-')
+            {
+                postToApplet (e, Event.KEY_PRESS, c);
+            }
+        }
+        if (e.getID () == KeyEvent.KEY_PRESSED)
+        {
+            int key = 0;
+            switch (e.getKeyCode ())
+            {
+            case KeyEvent.VK_UP:        key = Event.UP;     break;
+            case KeyEvent.VK_DOWN:      key = Event.DOWN;   break;
+            case KeyEvent.VK_LEFT:      key = Event.LEFT;   break;
+            case KeyEvent.VK_RIGHT:     key = Event.RIGHT;  break;
+            case KeyEvent.VK_PAGE_UP:   key = Event.PGUP;   break;
+            case KeyEvent.VK_PAGE_DOWN: key = Event.PGDN;   break;
+            case KeyEvent.VK_HOME:      key = Event.HOME;   break;
+            case KeyEvent.VK_END:       key = Event.END;    break;
+            }
+            if (key != 0)
+            {
+                postToApplet (e, Event.KEY_ACTION, key);
+            }
+        }
+        super.processKeyEvent (e);
+    }
+
+    protected void processWindowEvent (WindowEvent e)
+    {
+        if (e.getID () == WindowEvent.WINDOW_CLOSING)
+        {
+            close ();
+        }
+        super.processWindowEvent (e);
+    }
+
+    private void postToApplet (InputEvent e, int id, int key)
+    {
+        int x = 0;
+        int y = 0;
+        if (e instanceof MouseEvent)
+        {
+            x = ((MouseEvent) e).getX () - insets.left;
+            y = ((MouseEvent) e).getY () - insets.top;
+        }
+        applet.handleEvent (new Event (applet, e.getWhen (), id, x, y, key,
+                                       e.getModifiers ()));
+    }
+
+    //---------------------------------------------------------------------
+    // Applet scaffolding.
+    //---------------------------------------------------------------------
+
+    private MinesApplet createApplet (final Map<String,String> parameters)
+    {
+        MinesApplet applet = new MinesApplet ();
+        final AppletContext context = new Context (applet, parameters);
+        applet.setStub (new AppletStub ()
+        {
+            public boolean isActive ()
+            {
+                return running;
+            }
+
+            public URL getDocumentBase ()
+            {
+                return null;
+            }
+
+            public URL getCodeBase ()
+            {
+                return null;
+            }
+
+            public String getParameter (String name)
+            {
+                return parameters.get (name);
+            }
+
+            public AppletContext getAppletContext ()
+            {
+                return context;
+            }
+
+            public void appletResize (int width, int height)
+            {
+            }
+        });
+        return applet;
+    }
+
+    /**
+     * The context of the one applet the window hosts, known by its name
+     * parameter, or as "mines".  The status is shown in the title bar;
+     * there are no documents, images or sounds to be had, and streams are
+     * kept in a map.
+     */
+    private final class Context implements AppletContext
+    {
+        private final MinesApplet applet;
+        private final String name;
+        private final Map<String,InputStream> streams =
+            new HashMap<String,InputStream> ();
+
+        Context (MinesApplet applet, Map<String,String> parameters)
+        {
+            this.applet = applet;
+            String name = parameters.get ("name");
+            this.name = name != null ? name : "mines";
+        }
+
+        public void showStatus (String status)
+        {
+            setTitle ("Mines - " + status);
+        }
+
+        public Applet getApplet (String name)
+        {
+            return name != null && name.equals (this.name) ? applet : null;
+        }
+
+        public Enumeration<Applet> getApplets ()
+        {
+            return Collections.enumeration (
+                Collections.<Applet>singletonList (applet));
+        }
+
+        public AudioClip getAudioClip (URL url)
+        {
+            return null;
+        }
+
+        public Image getImage (URL url)
+        {
+            return null;
+        }
+
+        public void showDocument (URL url)
+        {
+        }
+
+        public void showDocument (URL url, String target)
+        {
+        }
+
+        public void setStream (String key, InputStream stream)
+        {
+            if (stream == null)
+                streams.remove (key);
+            else
+                streams.put (key, stream);
+        }
+
+        public InputStream getStream (String key)
+        {
+            return streams.get (key);
+        }
+
+        public Iterator<String> getStreamKeys ()
+        {
+            return streams.keySet ().iterator ();
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Main.
+    //---------------------------------------------------------------------
+
+    public static void main (String[] args)
+    {
+        // The applet parameters, by the names mines.html gives them:
+        final Map<String,String> parameters = new HashMap<String,String> ();
+        boolean stats = false;
+
+        for (int i = 0; i < args.length; ++i)
+        {
+            String arg = args[i];
+            if (arg.equals ("-noguess"))
+                parameters.put ("noguess", "true");
+            else if (arg.equals ("-stats"))
+                stats = true;
+            else if (i + 1 == args.length)
+                usage ();
+            else if (arg.equals ("-rows") || arg.equals ("-columns") ||
+                     arg.equals ("-nmines") || arg.equals ("-viewRows") ||
+                     arg.equals ("-viewColumns") || arg.equals ("-zoom") ||
+                     arg.equals ("-seed") || arg.equals ("-marksQ"))
+                parameters.put (arg.substring (1), args[++i]);
+            else
+                usage ();
+        }
+
+        final boolean showStats = stats;
+        EventQueue.invokeLater (new Runnable ()
+        {
+            public void run ()
+            {
+                new MinesFrame (parameters, showStats).start ();
+            }
+        });
+    }
+
+    private static void usage ()
+    {
+        System.err.println ("usage: java MinesFrame [-rows n]" +
+                            " [-columns n] [-nmines n] [-viewRows n]" +
+                            " [-viewColumns n] [-zoom n] [-seed n]" +
+                            " [-marksQ true|false] [-noguess] [-stats]");
+        System.exit (2);
+    }
+}
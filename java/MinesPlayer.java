@@ -0,0 +1,23 @@
+/**
+ *  MinesPlayer.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * A strategy for playing the game without a human, used by the
+ * MinesSimulator.  A player makes its moves through the MineField's own
+ * exposeCellAt, rotateTagAt and clearAround.  Each simulator worker
+ * creates its own player, so implementations need not be thread-safe,
+ * and should have a public no-argument constructor.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public interface MinesPlayer
+{
+    /**
+     * Play a freshly set up game until it is won or lost.  The random
+     * generator is the one that laid the mines, for reproducibility.
+     */
+    public void play (MineField field, MineRandom random);
+}
@@ -0,0 +1,273 @@
+/**
+ *  MinesSimulator.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many games headless on a fork-join pool, with a MinesPlayer in
+ * place of the human, and reports how the player fared.  Used to tune the
+ * mine density of the presets.
+ *
+ * Game i is played with a generator seeded from the base seed and i,
+ * which both lays its mines and serves its player, so that results do not
+ * depend on the number of threads or the order the games are played in.
+ * Each worker thread keeps one MineField and one player, reused for every
+ * game it plays.
+ *
+ * Usage: java MinesSimulator [-rows n] [-columns n] [-nmines n]
+ *                            [-games n] [-player name] [-seed n]
+ *                            [-threads n] [-marks]
+ *
+ * The player is a class implementing MinesPlayer; "Simple" names
+ * SimplePlayer.  The default is SolverPlayer.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MinesSimulator
+{
+    // Games played by a task that is not split further.
+    private final static int BATCH = 64;
+
+    private final int rows;
+    private final int columns;
+    private final int nmines;
+    private final boolean marksQ;
+    private final Class<? extends MinesPlayer> playerClass;
+
+    // Each worker thread's field and player.
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker> ()
+    {
+        protected Worker initialValue ()
+        {
+            return new Worker ();
+        }
+    };
+
+    public MinesSimulator (int rows, int columns, int nmines, boolean marksQ,
+                           Class<? extends MinesPlayer> playerClass)
+    {
+        this.rows = rows;
+        this.columns = columns;
+        this.nmines = nmines;
+        this.marksQ = marksQ;
+        this.playerClass = playerClass;
+    }
+
+    /**
+     * Play games 0 through ngames - 1 of the given seed on the pool.
+     */
+    public Result run (ForkJoinPool pool, long seed, int ngames)
+    {
+        return pool.invoke (new Batch (seed, 0, ngames));
+    }
+
+    //---------------------------------------------------------------------
+    // Results.
+    //---------------------------------------------------------------------
+
+    /**
+     * Totals over a number of games.
+     */
+    public final static class Result
+    {
+        private long games;
+        private long wins;
+        private long exposed;
+
+        public long getGames ()
+        {
+            return games;
+        }
+
+        public long getWins ()
+        {
+            return wins;
+        }
+
+        /**
+         * The total number of cells exposed, in games won and lost.
+         */
+        public long getExposed ()
+        {
+            return exposed;
+        }
+
+        public double getWinRate ()
+        {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        public double getMeanExposed ()
+        {
+            return games == 0 ? 0 : (double) exposed / games;
+        }
+
+        void add (Result other)
+        {
+            games += other.games;
+            wins += other.wins;
+            exposed += other.exposed;
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Workers.
+    //---------------------------------------------------------------------
+
+    /**
+     * The field and player of one worker thread.
+     */
+    private final class Worker
+    {
+        final MineField field;
+        final MinesPlayer player;
+
+        Worker ()
+        {
+            field = new MineField (rows, columns);
+            field.setMarksQ (marksQ);
+            try
+            {
+                player = playerClass.getDeclaredConstructor ().newInstance ();
+            }
+            catch (Exception e)
+            {
+                throw new IllegalArgumentException (playerClass.getName (), e);
+            }
+        }
+
+        void play (long seed, int game, Result result)
+        {
+            MineRandom random = new MineRandom (seed + game);
+            field.setRandom (random);
+            field.newGame (nmines);
+            player.play (field, random);
+
+            result.games += 1;
+            if (field.gameIsWon ())
+                result.wins += 1;
+            result.exposed += field.getExposedCount ();
+        }
+    }
+
+    /**
+     * Plays a range of games, splitting it in halves until small.
+     */
+    private final class Batch extends RecursiveTask<Result>
+    {
+        private final long seed;
+        private final int first;
+        private final int end;
+
+        Batch (long seed, int first, int end)
+        {
+            this.seed = seed;
+            this.first = first;
+            this.end = end;
+        }
+
+        protected Result compute ()
+        {
+            if (end - first <= BATCH)
+            {
+                Worker worker = workers.get ();
+                Result result = new Result ();
+                for (int game = first; game < end; ++game)
+                {
+                    worker.play (seed, game, result);
+                }
+                return result;
+            }
+
+            int middle = (first + end) >>> 1;
+            Batch low = new Batch (seed, first, middle);
+            low.fork ();
+            Result result = new Batch (seed, middle, end).compute ();
+            result.add (low.join ());
+            return result;
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Command line.
+    //---------------------------------------------------------------------
+
+    public static void main (String[] args)
+        throws Exception
+    {
+        // Defaults: the "hard" preset of mines.html.
+        int rows = 16;
+        int columns = 30;
+        int nmines = 99;
+        int ngames = 10000;
+        String player = "Solver";
+        long seed = new MineRandom ().nextLong ();
+        int threads = Runtime.getRuntime ().availableProcessors ();
+        boolean marksQ = false;
+
+        for (int i = 0; i < args.length; ++i)
+        {
+            String arg = args[i];
+            if (arg.equals ("-marks"))
+                marksQ = true;
+            else if (i + 1 == args.length)
+                usage ();
+            else if (arg.equals ("-rows"))
+                rows = Integer.parseInt (args[++i]);
+            else if (arg.equals ("-columns"))
+                columns = Integer.parseInt (args[++i]);
+            else if (arg.equals ("-nmines"))
+                nmines = Integer.parseInt (args[++i]);
+            else if (arg.equals ("-games"))
+                ngames = Integer.parseInt (args[++i]);
+            else if (arg.equals ("-player"))
+                player = args[++i];
+            else if (arg.equals ("-seed"))
+                seed = Long.parseLong (args[++i]);
+            else if (arg.equals ("-threads"))
+                threads = Integer.parseInt (args[++i]);
+            else
+                usage ();
+        }
+
+        Class<? extends MinesPlayer> playerClass =
+            Class.forName (player.endsWith ("Player") ? player
+                                                      : player + "Player")
+                 .asSubclass (MinesPlayer.class);
+        MinesSimulator simulator =
+            new MinesSimulator (rows, columns, nmines, marksQ, playerClass);
+        ForkJoinPool pool = new ForkJoinPool (threads);
+
+        long start = System.nanoTime ();
+        Result result = simulator.run (pool, seed, ngames);
+        double seconds = (System.nanoTime () - start) / 1e9;
+        pool.shutdown ();
+
+        double rate = result.getGames () / seconds;
+        System.out.println (rows + "x" + columns + ", " + nmines +
+                            " mines, " + playerClass.getName () +
+                            ", seed " + seed);
+        System.out.printf ("games     %d%n", result.getGames ());
+        System.out.printf ("won       %d (%.2f%%)%n", result.getWins (),
+                           100 * result.getWinRate ());
+        System.out.printf ("exposed   %.2f cells per game%n",
+                           result.getMeanExposed ());
+        System.out.printf ("time      %.3f s on %d threads%n",
+                           seconds, threads);
+        System.out.printf ("rate      %.0f games/s, %.0f per thread%n",
+                           rate, rate / threads);
+    }
+
+    private static void usage ()
+    {
+        System.err.println ("usage: java MinesSimulator [-rows n]" +
+                            " [-columns n] [-nmines n] [-games n]" +
+                            " [-player name] [-seed n] [-threads n]" +
+                            " [-marks]");
+        System.exit (2);
+    }
+}
@@ -0,0 +1,1735 @@
+/**
+ *  MinesView.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The game as it is seen and played: the field, the panel around it, and
+ * the mouse and keys that play it.  It paints into whatever graphics it is
+ * given, and needs no screen; its host (the applet) shows what it paints,
+ * and runs its clock, at the asking of a MinesViewListener.
+ * Class is declared final for performance reasons only.
+ *
+ * @version 3.0
+ * @author James Echmalian, ech@ech.net
+ */
+public final class MinesView implements MineFieldListener
+{
+    // Game parameters.
+    private final int rows;
+    private final int columns;
+    private int viewRows;           // rows shown at once
+    private int viewColumns;        // columns shown at once
+    private final int nmines;
+    private final boolean marksQ;
+    private int zoom;               // index into ZOOMS
+
+    // The Gamekeeper:
+    private MineField field;
+
+    // Source of the games to follow, and whether a game has been asked
+    // for that was not yet ready.  While one is pending, the field shown
+    // cannot be played, and each paint looks for the game again.
+    private MinePrefetcher prefetcher;
+    private volatile boolean gamePending;
+
+    // Layout variables:
+    private Rectangle panelRect;
+    private Rectangle topPanelRect;
+    private Rectangle gridPanelRect;
+    private Rectangle gridRect;
+    private Rectangle restartButtonRect;
+    private Rectangle counterRect;
+    private Rectangle timerRect;
+
+    // Cell size, zoomed:
+    private int cellWidth = CELL_WIDTH;
+    private int cellHeight = CELL_HEIGHT;
+
+    // Screen pixels to a pixel of the panel: more than 1 on a HiDPI
+    // screen, where the cell sprites are drawn at the screen's resolution
+    // rather than stretched to it.  The cell size in the sprites, in
+    // screen pixels:
+    private double deviceScale = 1;
+    private int spriteWidth = CELL_WIDTH;
+    private int spriteHeight = CELL_HEIGHT;
+
+    // Layout constants:
+    private final static int CELL_WIDTH = 16;
+    private final static int CELL_HEIGHT = 16;
+    private final static int gridBorderWidth = 3;
+    private final static int gridBorderHeight = 3;
+    private final static int panelBorderWidth = 9;
+    private final static int panelBorderHeight = 9;
+    private final static int panelDividerHeight = 6;
+    private final static int topPanelHeight = 37;
+    private final static int restartButtonSide = 26;
+    private final static int countBoxWidth = 39;
+
+    // Images.
+    private Image[] tagImages = new Image [15]; 
+    private BufferedImage baseSprites;
+    private Image cellSprites;
+    private Image happyImage;
+    private Image scaredImage;
+    private Image deadImage;
+    private Image coolImage;
+    private Image[] sevenSegImages = new Image [11];
+
+    // Colors:
+    private final static Color darkerGray = Color.lightGray.darker ();
+    private final static Color brighterGray = Color.lightGray.brighter ();
+
+    // Scroll position, the first row and column shown:
+    private int topRow;
+    private int leftColumn;
+    private boolean scrolled;
+
+    // Zoom levels, as multiples of the unzoomed cell size:
+    private final static double[] ZOOMS = 
+        { 1, 1.25, 1.5, 1.75, 2, 2.5, 3, 3.5, 4 };
+
+    // The cell sprites of the sizes last zoomed to, keyed by tile width
+    // and height in screen pixels, least recently used first.  Each size
+    // is drawn once, and only the most recent few are kept.
+    private final static int MAX_SPRITE_SETS = 4;
+    private final Map<Integer,Image> spriteCache =
+        new LinkedHashMap<Integer,Image> (MAX_SPRITE_SETS + 1, 0.75f, true)
+        {
+            protected boolean removeEldestEntry (Map.Entry<Integer,Image> e)
+            {
+                return size () > MAX_SPRITE_SETS;
+            }
+        };
+    private boolean zoomed;
+
+    // The hot area, the cells drawn pressed if covered: rows hotTop to
+    // hotBottom and columns hotLeft to hotRight, inclusive, or none if
+    // hotTop is negative.  Kept in fields, not Rectangles, so that
+    // tracking the mouse allocates nothing.
+    private int hotTop = -1;
+    private int hotLeft;
+    private int hotBottom;
+    private int hotRight;
+    private boolean restartPressed;
+    private Image restartImage;
+    private int[] counterDigits;
+    private int[] timerDigits;
+
+    // Timer state:
+    private boolean timerRunning;
+    private long accumTime;
+    private long startTime;
+    private int timer;
+    private final static int TIMER_MAX = 999;
+
+    // Cursor position:
+    private int mousex = -1;
+    private int mousey = -1;
+
+    //
+    // Mouse button states.  Distinguish left press from right press
+    // from left-right press (double clicks).
+    //
+    private final static int MB_NONE = 0;
+    private final static int MB_LEFT = 1;
+    private final static int MB_RIGHT = 2;
+    private final static int MB_DOUBLE = 3;
+    private final static int MB_RIGHT_CONSUMED = 4;
+    private final static int MB_DOUBLE_CONSUMED = 5;
+
+    private int mouseButtonState = MB_NONE;
+
+    // 
+    // The MB states don't tell the whole story.
+    // If the mouse button comes down in the restart button, the subsequent
+    // release takes effect only if also within the restart button.
+    // If the mouse button comes down anywhere else, the release may clear
+    // a cell.
+    //
+    private boolean pressInRestart = false;
+
+    // Tag constants, as defined by the Gamekeeper:
+    public final static byte TAG_NULL = MineField.TAG_NULL;
+    public final static byte TAG_FLAG = MineField.TAG_FLAG;
+    public final static byte TAG_QUES = MineField.TAG_QUES;
+    public final static byte TAG_BOOM = MineField.TAG_BOOM;
+    public final static byte TAG_MINE = MineField.TAG_MINE;
+    public final static byte TAG_OOPS = MineField.TAG_OOPS;
+    public final static byte TAG_ZERO = MineField.TAG_ZERO;
+    public final static byte TAG_ONE  = MineField.TAG_ONE;
+    public final static byte TAG_TWO  = MineField.TAG_TWO;
+    public final static byte TAG_THREE = MineField.TAG_THREE;
+    public final static byte TAG_FOUR = MineField.TAG_FOUR;
+    public final static byte TAG_FIVE = MineField.TAG_FIVE;
+    public final static byte TAG_SIX  = MineField.TAG_SIX;
+    public final static byte TAG_SEVEN = MineField.TAG_SEVEN;
+    public final static byte TAG_EIGHT = MineField.TAG_EIGHT;
+
+    // The color model
+    private final ColorModel colorModel = makeColorModel ();
+
+    // The host, told what to show and when to tick:
+    private final MinesViewListener listener;
+
+
+    //---------------------------------------------------------------------
+    // Construction and the host's interface.
+    //---------------------------------------------------------------------
+
+    /**
+     * Make the view of a new game on a field of the given size, showing
+     * viewRows by viewColumns cells of it at once, at the zoom level
+     * nearest the given scale.  Given a seed, the games are laid from it;
+     * given noGuess, they need no guessing where such can be found.
+     */
+    public MinesView (int rows, int columns, int nmines,
+                      int viewRows, int viewColumns, double scale,
+                      Long seed, boolean noGuess, boolean marksQ,
+                      MinesViewListener listener)
+    {
+        this.rows = rows;
+        this.columns = columns;
+        this.nmines = nmines;
+        this.viewRows = viewRows;
+        this.viewColumns = viewColumns;
+        this.marksQ = marksQ;
+        this.listener = listener;
+
+        // The nearest zoom level.
+        for (int level = 1; level < ZOOMS.length; ++level)
+        {
+            if (Math.abs (ZOOMS[level] - scale) < 
+                Math.abs (ZOOMS[zoom] - scale))
+            {
+                zoom = level;
+            }
+        }
+        cellWidth = (int) Math.round (CELL_WIDTH * ZOOMS[zoom]);
+        cellHeight = (int) Math.round (CELL_HEIGHT * ZOOMS[zoom]);
+
+        //
+        // Build images.
+        //
+        createImages ();
+        
+        //
+        // Create a gamekeeper, and start setting up the games to follow
+        // in the background.
+        //
+        MineRandom random = new MineRandom ();
+        if (seed != null)
+        {
+            random = new MineRandom (seed.longValue ()).split ();
+        }
+
+        MineGenerator generator = null;
+        if (noGuess)
+        {
+            try
+            {
+                generator = new MineGenerator (rows, columns, nmines,
+                                               random.split (), 2);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // Too many mines to leave an opening: play ordinary boards.
+            }
+        }
+        prefetcher = new MinePrefetcher (rows, columns, nmines, random,
+                                         generator, 2);
+
+        field = new MineField (rows, columns);
+        if (generator != null)
+        {
+            // The first no-guess game is swapped in once found; until
+            // then, a blank field is shown.
+            gamePending = true;
+        }
+        else
+        {
+            if (seed != null)
+            {
+                field.setSeed (seed.longValue ());
+            }
+            field.setupGame (nmines);
+        }
+
+        //
+        // Initialize layout.
+        //
+        panelRect = computePanelRect (viewRows, viewColumns);
+        topPanelRect = computeTopPanelRect (viewColumns);
+        gridPanelRect = computeGridPanelRect (viewRows, viewColumns);
+        gridRect = computeGridRect (viewRows, viewColumns);
+        restartButtonRect = computeRestartButtonRect (viewColumns);
+        counterRect = getCounterRect ();
+        timerRect = getTimerRect ();
+
+        //
+        // Create graphical control elements.
+        //
+        restartPressed = false;
+        restartImage = happyImage;
+        counterDigits = new int [3];
+        timerDigits = new int [3];
+
+        //
+        // Initialize timer state.
+        //
+        startTime = -1;
+        timer = 0;
+
+        field.setMarksQ (marksQ);
+        field.setListener (this);
+    }
+
+    /**
+     * Stop setting up games in the background.
+     */
+    public void destroy ()
+    {
+        prefetcher.shutdown ();
+    }
+
+    /**
+     * Width of the panel.
+     */
+    public int getWidth ()
+    {
+        return panelRect.width;
+    }
+
+    /**
+     * Height of the panel.
+     */
+    public int getHeight ()
+    {
+        return panelRect.height;
+    }
+
+    /**
+     * Set the screen pixels to a pixel of the panel, of the buffer painted
+     * into, and draw the cell sprites at that resolution.
+     */
+    public void setDeviceScale (double scale)
+    {
+        if (scale != deviceScale)
+        {
+            deviceScale = scale;
+            updateCellSprites ();
+        }
+    }
+
+    /**
+     * Forget the mouse, as when the host is started again.
+     */
+    public void resetMouse ()
+    {
+        mousex = -1;
+        mousey = -1;
+        mouseButtonState = MB_NONE;
+        pressInRestart = false;
+    }
+
+    /**
+     * Bring the timer up to date, for a tick of the host's clock.  Returns
+     * the milliseconds to the next whole second, when the clock should
+     * come again, or -1 once the timer has reached its limit.
+     */
+    public long tickTimer ()
+    {
+        long time = accumTime + (System.currentTimeMillis () - startTime);
+        timer = (int)time / 1000;
+        if (timer >= TIMER_MAX)
+        {
+            timer = TIMER_MAX;
+            return -1;
+        }
+        return 1000 - (time % 1000);
+    }
+
+    /**
+     * Pause the timer, if running, while the host is stopped.
+     */
+    public void pauseTimer ()
+    {
+        if (timerRunning)
+        {
+            listener.clockStopped ();
+
+            // Store accumulated time.
+            accumTime += System.currentTimeMillis () - startTime;
+        }
+    }
+
+    /**
+     * Resume the timer, if it was running, when the host is started.
+     */
+    public void resumeTimer ()
+    {
+        if (timerRunning)
+        {
+            startTime = System.currentTimeMillis ();
+            listener.clockStarted ();
+        }
+    }
+
+    /**
+     * Whether a game has been asked for that is not yet ready.
+     */
+    public boolean isGamePending ()
+    {
+        return gamePending;
+    }
+
+    /**
+     * Swap in the pending game, if there is one and it is ready, and tell
+     * the host of the new status.  Called before each paint.
+     */
+    public void takePendingGame ()
+    {
+        if (gamePending && takeGame ())
+        {
+            listener.statusChanged (getStatus ());
+        }
+    }
+
+    /**
+     * Bring a buffer painted by paintEverything up to date, for a paint
+     * of the given clip.
+     */
+    public void paintUpdate (Graphics g, Rectangle clip)
+    {
+        if (zoomed)
+        {
+            // The grid has been laid out anew, and other cells may now be
+            // under a press.
+            zoomed = false;
+            paintEverything (g);
+            paintChanges (g);
+        }
+        else if (timerRect.contains (clip))
+        {
+            // A tick of the timer.  Other changes wait for their own
+            // repaint, since only the timer would reach the screen.
+            drawSevenSeg (g, timerRect, timerDigits, timer, false);
+        }
+        else
+        {
+            paintChanges (g);
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Painting.
+    //---------------------------------------------------------------------
+
+    /**
+     * Paint the cells, buttons and displays that have changed.  Package
+     * private for the paint benchmarks.
+     */
+    void paintChanges (Graphics g) 
+    {
+        Image restartImage = happyImage;
+        if (!gamePending && field.gameIsWon ()) restartImage = coolImage;
+        if (!gamePending && field.gameIsLost ()) restartImage = deadImage;
+
+        boolean restartPressed = false;
+
+        int top = -1;
+        int left = 0;
+        int bottom = 0;
+        int right = 0;
+
+        //
+        // Determine which buttons, if any, are pressed.
+        //
+        switch (mouseButtonState)
+        {
+        case MB_LEFT:
+            if (pressInRestart)
+            {
+                restartPressed = restartButtonRect.inside (mousex, mousey);
+            }
+            else if (gameEnabled ())
+            {
+                if (gridRect.inside (mousex, mousey))
+                {
+                    // Single hot cell.
+                    int cell = cellAt (mousex, mousey);
+                    top = bottom = cell / columns;
+                    left = right = cell % columns;
+                }
+                restartImage = scaredImage;
+            }
+            break;
+        case MB_DOUBLE:
+            if (gameEnabled ())
+            {
+                if (gridRect.inside (mousex, mousey))
+                {
+                    // A block of hot cells.
+                    int cell = cellAt (mousex, mousey);
+                    int row = cell / columns;
+                    int column = cell % columns;
+                    top = row == 0 ? 0 : row - 1;
+                    left = column == 0 ? 0 : column - 1;
+                    bottom = row == rows - 1 ? row : row + 1;
+                    right = column == columns - 1 ? column : column + 1;
+                }
+                restartImage = scaredImage;
+            }
+            break;
+        }
+
+        // Update restart button.
+        if (restartPressed != this.restartPressed)
+        {
+            this.restartPressed = restartPressed;
+            this.restartImage = restartImage;
+            paintRestartButton (g);
+        }
+        else if (restartImage != this.restartImage)
+        {
+            this.restartImage = restartImage;
+            paintRestartImage (g);
+        }
+
+        //
+        // If any cells are newly pressed or newly released, mark them
+        // dirty.
+        //
+        if (top != hotTop || left != hotLeft || 
+            bottom != hotBottom || right != hotRight)
+        {
+            setDirty (hotTop, hotLeft, hotBottom, hotRight);
+            hotTop = top;
+            hotLeft = left;
+            hotBottom = bottom;
+            hotRight = right;
+            setDirty (hotTop, hotLeft, hotBottom, hotRight);
+        }
+
+        //
+        // Update all cells in view if the view has moved, otherwise all
+        // dirty cells in view.  Cells out of view stay dirty.
+        //
+        if (scrolled)
+        {
+            scrolled = false;
+            paintGrid (g);
+        }
+        else
+        {
+            for (int row = topRow; row < topRow + viewRows; ++row)
+            {
+                int start = row * columns + leftColumn;
+                int end = start + viewColumns;
+                for (int index = field.nextDirtyCell (start, end); 
+                     index >= 0; index = field.nextDirtyCell (index + 1, end))
+                {
+                    int column = index - (row * columns);
+                    paintCell (g, row, column, isPressed (row, column));
+                    field.clearDirty (row, column);
+                }
+            }
+        }
+
+        // Update the unflagged cell counter...
+        drawSevenSeg (g, counterRect, counterDigits, 
+                      field.getCounter (), false);
+
+        // Draw the timer.
+        drawSevenSeg (g, timerRect, timerDigits, timer, false);
+    }
+
+    /**
+     * Paint everything, panels and borders included, as into a new
+     * buffer.
+     */
+    public void paintEverything (Graphics g) 
+    {
+        // Fill the background.
+        //
+        g.setColor (Color.lightGray);
+        g.fillRect (panelRect.x, panelRect.y, 
+                    panelRect.width, panelRect.height);
+
+        // Draw outer rectangle.
+        //
+        draw3DRect (g, panelRect, true, 3);
+
+        // Draw rectangle around upper panel.
+        //
+        draw3DRect (g, topPanelRect, false, 2);
+
+        // Draw rectangle around grid.
+        //
+        draw3DRect (g, gridPanelRect, false, 3);
+
+        // Draw objects in upper panel.
+        //
+        paintRestartButton (g);
+        drawSevenSeg (g, counterRect, counterDigits, 
+                      Math.max (field.getCounter (), 0), true);
+        drawSevenSeg (g, timerRect, timerDigits, timer, true);
+
+        // Draw the grid itself.
+        paintGrid (g);
+    }
+
+    /**
+     * Paint every cell in view, the hot area pressed.
+     */
+    private void paintGrid (Graphics g)
+    {
+        for (int r = topRow; r < topRow + viewRows; ++r)
+        {
+            for (int c = leftColumn; c < leftColumn + viewColumns; ++c)
+            {
+                paintCell (g, r, c, isPressed (r, c));
+                field.clearDirty (r, c);
+            }
+        }
+    }
+
+    /**
+     * Whether the given cell is drawn pressed: a covered cell, untagged
+     * or marked '?', in the hot area.
+     */
+    private boolean isPressed (int row, int column)
+    {
+        if (hotTop >= 0 && row >= hotTop && row <= hotBottom && 
+            column >= hotLeft && column <= hotRight)
+        {
+            byte tag = field.getTag (row, column);
+            return tag == TAG_NULL || tag == TAG_QUES;
+        }
+        return false;
+    }
+
+    /**
+     * Mark dirty the cells in rows top to bottom and columns left to
+     * right, inclusive; none if top is negative.
+     */
+    private void setDirty (int top, int left, int bottom, int right)
+    {
+        if (top >= 0)
+        {
+            for (int row = top; row <= bottom; ++row)
+            {
+                for (int column = left; column <= right; ++column)
+                {
+                    field.setDirty (row, column);
+                }
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Event handling.
+    //---------------------------------------------------------------------
+
+    /**
+     * Handle mouse button down event.
+     */
+    public boolean mouseDown (Event evt, int x, int y) 
+    {
+        // Track mouse position.
+        mousex = x;
+        mousey = y;
+
+        // On Windows, metaDown is true if the right mouse button is 
+        // depressed at the time the mouse event occurs.  Note that this
+        // is true when the right mouse button is pressed, and also when
+        // the left mouse button is pressed while the right is held.
+        //
+        boolean meta = evt.metaDown () || evt.shiftDown ();
+
+        // 
+        // Update mouse button state.
+        // Indicates any special rendering of elements that is required.
+        //
+        switch (mouseButtonState)
+        {
+        case MB_NONE:
+            mouseButtonState = meta ? MB_RIGHT : MB_LEFT;
+            listener.viewChanged ();
+            break;
+        case MB_LEFT:
+            if (meta)
+            {
+                mouseButtonState = MB_DOUBLE;
+                listener.viewChanged ();
+            }
+            break;
+        case MB_RIGHT:
+            mouseButtonState = MB_DOUBLE;
+            listener.viewChanged ();
+            break;
+        }
+
+        // Special state that applies only while the left button alone is
+        // pressed in the restart button and held.
+        //
+        pressInRestart = 
+            mouseButtonState == MB_LEFT && restartButtonRect.inside (x, y);
+
+        // Right-click to rotate cell tag takes effect on mouse down.
+        if (mouseButtonState == MB_RIGHT && gameEnabled () && 
+            gridRect.inside (mousex, mousey))
+        {
+            // Flag a cell.
+            int cell = cellAt (mousex, mousey);
+            if (field.rotateTagAt (cell / columns, cell % columns))
+            {
+                // Accept no further mouse button activity until the
+                // button is released.
+                mouseButtonState = MB_RIGHT_CONSUMED;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Handle mouse button up event.
+     */
+    public boolean mouseUp (Event evt, int x, int y) 
+    {
+        // Track mouse position.
+        mousex = x;
+        mousey = y;
+
+        // On Windows, metaDown is true if the right mouse button is 
+        // depressed at the time the mouse event occurs.  
+        //
+        boolean meta = evt.metaDown () || evt.shiftDown ();
+
+        switch (mouseButtonState)
+        {
+        case MB_LEFT:
+            if (pressInRestart && restartButtonRect.inside (x, y))
+            {
+                // Restart button pressed.
+                newGame ();
+            }
+            else if (gameEnabled () && gridRect.inside (x, y))
+            {
+                // Clear a cell
+                int cell = cellAt (x, y);
+                startTimerOnMove ();
+                field.exposeCellAt (cell / columns, cell % columns);
+            }
+            // Fall through...
+        case MB_RIGHT:
+        case MB_RIGHT_CONSUMED:
+            mouseButtonState = MB_NONE;
+            break;
+        case MB_DOUBLE:
+            if (gameEnabled () && gridRect.inside (x, y))
+            {
+                // Clear surrounding cells
+                int cell = cellAt (x, y);
+                startTimerOnMove ();
+                field.clearAround (cell / columns, cell % columns);
+            }
+            // Don't respond to the second mouse button release of the pair.
+            mouseButtonState = MB_DOUBLE_CONSUMED;
+            break;
+        case MB_DOUBLE_CONSUMED:
+            if (!meta)
+            {
+                mouseButtonState = MB_NONE;
+            }
+            break;
+        }
+
+        pressInRestart = false;
+        listener.viewChanged ();
+        return true;
+    }
+
+    /**
+     *  Handle mouse move event.
+     */
+    public boolean mouseMove (Event evt, int x, int y) 
+    {
+        mousex = x;
+        mousey = y;
+        mouseButtonState = MB_NONE;
+        pressInRestart = false;
+        listener.viewChanged ();
+        return true;
+    }
+
+    /**
+     *  Handle mouse drag event.
+     */
+    public boolean mouseDrag (Event evt, int x, int y) 
+    {
+        mousex = x;
+        mousey = y;
+        listener.viewChanged ();
+        return true;
+    }
+
+    /**
+     *  Handle key press event.  If the field is larger than the view, the
+     *  arrow keys scroll the view by a cell, and page up, page down, home
+     *  and end by a view's height or width.  Plus and minus zoom in and
+     *  out.
+     */
+    public boolean keyDown (Event evt, int key) 
+    {
+        switch (key)
+        {
+        case Event.UP:
+            scrollTo (topRow - 1, leftColumn);
+            break;
+        case Event.DOWN:
+            scrollTo (topRow + 1, leftColumn);
+            break;
+        case Event.LEFT:
+            scrollTo (topRow, leftColumn - 1);
+            break;
+        case Event.RIGHT:
+            scrollTo (topRow, leftColumn + 1);
+            break;
+        case Event.PGUP:
+            scrollTo (topRow - viewRows, leftColumn);
+            break;
+        case Event.PGDN:
+            scrollTo (topRow + viewRows, leftColumn);
+            break;
+        case Event.HOME:
+            scrollTo (topRow, leftColumn - viewColumns);
+            break;
+        case Event.END:
+            scrollTo (topRow, leftColumn + viewColumns);
+            break;
+        case '+':
+        case '=':
+            zoomTo (zoom + 1);
+            break;
+        case '-':
+            zoomTo (zoom - 1);
+            break;
+        default:
+            return false;
+        }
+        return true;
+    }
+
+    //---------------------------------------------------------------------
+    // Game management.
+    //---------------------------------------------------------------------
+
+    /**
+     * Start the next game, swapping in the field set up for it in the
+     * background.  The field played is handed back to be cleared and set
+     * up again.  If the next game is not ready, it is pending: the old
+     * field stays, and cannot be played, until a paint finds the game
+     * ready; the event thread never waits for it.
+     */
+    public void newGame ()
+    {
+        stopTimer ();
+        accumTime = 0;
+        timer = 0;
+
+        gamePending = true;
+        takeGame ();
+        listener.statusChanged (getStatus ());
+        listener.viewChanged ();
+    }
+
+    /**
+     * Swap in the pending game, if it is ready.  Returns whether it was.
+     */
+    private boolean takeGame ()
+    {
+        MineField next = prefetcher.poll ();
+        if (next == null)
+            return false;
+
+        prefetcher.recycle (field);
+        field = next;
+        field.setMarksQ (marksQ);
+        field.setListener (this);
+        gamePending = false;
+
+        // The field was cleared in the background, so all its cells are
+        // dirty already.
+        return true;
+    }
+
+    /**
+     * Whether the game may be played: neither over nor pending.
+     */
+    private boolean gameEnabled ()
+    {
+        return !gamePending && field.gameEnabled ();
+    }
+
+    /**
+     * The status line for the game: the seed it was laid from, given
+     * back as the seed parameter, lays it again.  A no-guess board is not
+     * laid from a seed, so has none to show.
+     */
+    public String getStatus ()
+    {
+        if (gamePending)
+            return "setting up the game";
+        if (field.isSeeded ())
+            return "seed " + field.getSeed ();
+        return "no-guess board";
+    }
+
+    //---------------------------------------------------------------------
+    // Implementation of MineFieldListener.
+    //---------------------------------------------------------------------
+
+    public void cellTagged (int row, int column)
+    {
+        // The field marks the cell dirty.
+    }
+
+    public void gameCleared ()
+    {
+        // The field marks every cell dirty.
+    }
+
+    public void gameStarted ()
+    {
+        startTimer ();
+    }
+
+    public void gameEnded ()
+    {
+        stopTimer ();
+    }
+
+    private void startTimer () 
+    {
+        accumTime = 1000;       // timer goes to 1 on click!
+        startTime = System.currentTimeMillis ();
+        timerRunning = true;
+        listener.clockStarted ();
+    }
+
+    /**
+     * Start the timer on the player's first move, if the game began with
+     * an opening given (in no-guess mode), which a prefetched field
+     * exposes without telling the listener.
+     */
+    private void startTimerOnMove ()
+    {
+        if (!timerRunning && accumTime == 0 && field.getExposedCount () > 0)
+        {
+            startTimer ();
+        }
+    }
+
+    private void stopTimer ()
+    {
+        timerRunning = false;
+        listener.clockStopped ();
+    }
+
+    //---------------------------------------------------------------------
+    // Graphics layout.
+    //---------------------------------------------------------------------
+
+    private int computeInnerWidth (int columns)
+    {
+        return (columns * cellWidth) + (2 * gridBorderWidth);
+    }
+
+    private Rectangle computePanelRect (int rows, int columns)
+    {
+        Rectangle rect = computeGridPanelRect (rows, columns);
+        rect.x = 0;
+        rect.y = 0;
+        rect.width += 2 * panelBorderWidth;
+        rect.height += topPanelHeight + panelDividerHeight +
+                                        (2 * panelBorderHeight);
+        return rect;
+    }
+
+    private Rectangle computeTopPanelRect (int columns)
+    {
+        return new Rectangle (panelBorderWidth, panelBorderHeight,
+                              computeInnerWidth (columns), topPanelHeight);
+    }
+
+    private Rectangle computeGridPanelRect (int rows, int columns)
+    {
+        Rectangle rect = computeGridRect (rows, columns);
+        rect.x -= gridBorderWidth;
+        rect.y -= gridBorderHeight;
+        rect.width += 2 * gridBorderWidth;
+        rect.height += 2 * gridBorderHeight;
+        return rect;
+    }
+
+    private Rectangle computeGridRect (int rows, int columns)
+    {
+        int x = panelBorderWidth + gridBorderWidth;
+        int y = topPanelHeight + panelBorderHeight + 
+                        panelDividerHeight + gridBorderHeight;
+        int width = columns * cellWidth;
+        int height = rows * cellHeight;
+        return new Rectangle (x, y, width, height);
+    }
+        
+    private Rectangle computeRestartButtonRect (int columns)
+    {
+        int side = restartButtonSide;
+        int x = panelBorderWidth + ((computeInnerWidth (columns) - side) / 2);
+        int y = panelBorderHeight + ((topPanelHeight - side) / 2);
+        return new Rectangle (x, y, side, side);
+    }
+
+    public Rectangle getCounterRect ()
+    {
+        int topBottomMargin = 6;
+        int leftMargin = 8;
+        int height = topPanelHeight - 2 * topBottomMargin;
+        return new Rectangle (panelBorderWidth + leftMargin, 
+                              panelBorderHeight + topBottomMargin,
+                              countBoxWidth, height);
+    }
+
+    public Rectangle getTimerRect ()
+    {
+        int topBottomMargin = 6;
+        int rightMargin = 8;
+        int height = topPanelHeight - 2 * topBottomMargin;
+        int x = panelBorderWidth + topPanelRect.width - 
+                                rightMargin - countBoxWidth;
+        return new Rectangle (x, panelBorderHeight + topBottomMargin,
+                              countBoxWidth, height);
+    }
+
+    public Rectangle getCellRect (int row, int column)
+    {
+        int x = gridRect.x + (column - leftColumn) * cellWidth;
+        int y = gridRect.y + (row - topRow) * cellHeight;
+        return new Rectangle (x, y, cellWidth, cellHeight);
+    }
+
+    /**
+     * The cell under the given point in the grid, as seen through the
+     * view, packed as row * columns + column.
+     */
+    private int cellAt (int x, int y)
+    {
+        int relx = x - gridRect.x;
+        int rely = y - gridRect.y;
+        return (topRow + rely / cellHeight) * columns + 
+               leftColumn + relx / cellWidth;
+    }
+
+    /**
+     * Move the view to show the given row and column at its top left,
+     * or as near as the edges of the field allow.
+     */
+    private void scrollTo (int row, int column)
+    {
+        row = Math.max (0, Math.min (rows - viewRows, row));
+        column = Math.max (0, Math.min (columns - viewColumns, column));
+        if (row != topRow || column != leftColumn)
+        {
+            topRow = row;
+            leftColumn = column;
+            scrolled = true;
+            listener.viewChanged ();
+        }
+    }
+
+    /**
+     * Zoom to the given level, keeping the cell in the middle of the view
+     * in the middle, as near as may be.  The panel keeps its size: the
+     * view shows as many whole cells of the new size as fit in the grid
+     * panel, so a board shown whole scrolls once zoomed in past it.  A
+     * level whose cells would not fit at all is refused.
+     */
+    private void zoomTo (int level)
+    {
+        if (level < 0 || level >= ZOOMS.length || level == zoom)
+            return;
+
+        int width = (int) Math.round (CELL_WIDTH * ZOOMS[level]);
+        int height = (int) Math.round (CELL_HEIGHT * ZOOMS[level]);
+        int areaWidth = gridPanelRect.width - (2 * gridBorderWidth);
+        int areaHeight = gridPanelRect.height - (2 * gridBorderHeight);
+        if (width > areaWidth || height > areaHeight)
+            return;
+
+        int middleRow = topRow + (viewRows / 2);
+        int middleColumn = leftColumn + (viewColumns / 2);
+
+        zoom = level;
+        cellWidth = width;
+        cellHeight = height;
+        updateCellSprites ();
+        viewRows = Math.min (rows, areaHeight / height);
+        viewColumns = Math.min (columns, areaWidth / width);
+        gridRect = computeGridRect (viewRows, viewColumns);
+        topRow = Math.max (0, Math.min (rows - viewRows, 
+                                        middleRow - (viewRows / 2)));
+        leftColumn = Math.max (0, Math.min (columns - viewColumns,
+                                            middleColumn - (viewColumns / 2)));
+        zoomed = true;
+        listener.viewChanged ();
+    }
+
+    //---------------------------------------------------------------------
+    // Images.
+    //---------------------------------------------------------------------
+
+    private static ColorModel makeColorModel ()
+    {
+        Color[] colors = {
+            Color.black,                // the transparent color 
+            Color.black,
+            Color.white,
+            Color.red,
+            new Color (127, 0, 0),      // dark red
+            Color.yellow,
+            new Color (0, 127, 0),      // dark green
+            Color.blue,
+            new Color (0, 0, 127),      // dark blue
+            new Color (127, 127, 0),    // brown
+            new Color (0, 127, 127)     // dark cyan
+        };
+
+        byte[] reds = new byte [colors.length];
+        byte[] greens = new byte [colors.length];
+        byte[] blues = new byte [colors.length];
+
+        for (int i = 0; i < colors.length; ++i)
+        {
+            reds[i] = (byte) colors[i].getRed ();
+            greens[i] = (byte) colors[i].getGreen ();
+            blues[i] = (byte) colors[i].getBlue ();
+        }
+
+        return new IndexColorModel (5, colors.length, reds, greens, blues, 0);
+    }
+
+    private void createImages ()
+    {
+        tagImages[TAG_FLAG] = createTag ("aaaaaaaaaaaaaaa" +
+                                         "aaaaaaddaaaaaaa" +
+                                         "aaaaddddaaaaaaa" +
+                                         "aaadddddaaaaaaa" +
+                                         "aaaaddddaaaaaaa" +
+                                         "aaaaaaddaaaaaaa" +
+                                         "aaaaaaabaaaaaaa" +
+                                         "aaaaaaabaaaaaaa" +
+                                         "aaaaabbbbaaaaaa" +
+                                         "aaabbbbbbbbaaaa" +
+                                         "aaabbbbbbbb");
+
+        tagImages[TAG_QUES] = createTag ("aaaaaaaaaaaaaaa" +
+                                         "aaaaabbbbaaaaaa" +
+                                         "aaaabbaabbaaaaa" +
+                                         "aaaabbaabbaaaaa" +
+                                         "aaaaaaaabbaaaaa" +
+                                         "aaaaaaabbaaaaaa" +
+                                         "aaaaaabbaaaaaaa" +
+                                         "aaaaaabbaaaaaaa" +
+                                         "aaaaaaaaaaaaaaa" +
+                                         "aaaaaabbaaaaaaa" +
+                                         "aaaaaabb");
+
+        tagImages[TAG_MINE] = 
+        tagImages[TAG_BOOM] = createTag ("aaaaaaabaaaaaaa" +
+                                         "aaaaaaabaaaaaaa" +
+                                         "aaababbbbbabaaa" +
+                                         "aaaabbbbbbbaaaa" +
+                                         "aaabbccbbbbbaaa" +
+                                         "aaabbccbbbbbaaa" +
+                                         "abbbbbbbbbbbbba" +
+                                         "aaabbbbbbbbbaaa" +
+                                         "aaabbbbbbbbbaaa" +
+                                         "aaaabbbbbbbaaaa" +
+                                         "aaababbbbbabaaa" +
+                                         "aaaaaaabaaaaaaa" +
+                                         "aaaaaaab");
+
+        tagImages[TAG_OOPS] = createTag ("aaaaaaabaaaaaaa" +
+                                         "addaaaabaaaadda" +
+                                         "aaddabbbbbaddaa" +
+                                         "aaaddbbbbbddaaa" +
+                                         "aaabddcbbddbaaa" +
+                                         "aaabbddbddbbaaa" +
+                                         "abbbbbdddbbbbba" +
+                                         "aaabbbdddbbbaaa" +
+                                         "aaabbddbddbbaaa" +
+                                         "aaaaddbbbddaaaa" +
+                                         "aaaddbbbbbddaaa" +
+                                         "aaddaaabaaaddaa" +
+                                         "addaaaabaaaadda" +
+                                         "ddaaaaaaaaaaadd");
+
+        tagImages[TAG_ONE] = createTag ("aaaaaaaaaaaaaaa" +
+                                        "aaaaaaahhaaaaaa" +
+                                        "aaaaaahhhaaaaaa" +
+                                        "aaaaahhhhaaaaaa" +
+                                        "aaaahhhhhaaaaaa" +
+                                        "aaaaaahhhaaaaaa" +
+                                        "aaaaaahhhaaaaaa" +
+                                        "aaaaaahhhaaaaaa" +
+                                        "aaaaaahhhaaaaaa" +
+                                        "aaaahhhhhhhaaaa" +
+                                        "aaaahhhhhhh");
+
+        tagImages[TAG_TWO] = createTag ("aaaaaaaaaaaaaaa" +
+                                        "aaaggggggggaaaa" +
+                                        "aaggggggggggaaa" +
+                                        "aagggaaaagggaaa" +
+                                        "aaaaaaaaagggaaa" +
+                                        "aaaaaaaggggaaaa" +
+                                        "aaaaagggggaaaaa" +
+                                        "aaagggggaaaaaaa" +
+                                        "aaggggaaaaaaaaa" +
+                                        "aaggggggggggaaa" +
+                                        "aagggggggggg");
+
+        tagImages[TAG_THREE] = createTag ("aaaaaaaaaaaaaaa" +
+                                          "aadddddddddaaaa" +
+                                          "aaddddddddddaaa" +
+                                          "aaaaaaaaadddaaa" +
+                                          "aaaaaaaaadddaaa" +
+                                          "aaaaaddddddaaaa" +
+                                          "aaaaaddddddaaaa" +
+                                          "aaaaaaaaadddaaa" +
+                                          "aaaaaaaaadddaaa" +
+                                          "aaddddddddddaaa" +
+                                          "aaddddddddd");
+
+        tagImages[TAG_FOUR] = createTag ("aaaaaaaaaaaaaaa" +
+                                         "aaaaiiiaiiiaaaa" +
+                                         "aaaaiiiaiiiaaaa" +
+                                         "aaaiiiaaiiiaaaa" +
+                                         "aaaiiiaaiiiaaaa" +
+                                         "aaiiiiiiiiiiaaa" +
+                                         "aaiiiiiiiiiiaaa" +
+                                         "aaaaaaaaiiiaaaa" +
+                                         "aaaaaaaaiiiaaaa" +
+                                         "aaaaaaaaiiiaaaa" +
+                                         "aaaaaaaaiii");
+
+        tagImages[TAG_FIVE] = createTag ("aaaaaaaaaaaaaaa" +
+                                         "aaeeeeeeeeeeaaa" +
+                                         "aaeeeeeeeeeeaaa" +
+                                         "aaeeeaaaaaaaaaa" +
+                                         "aaeeeaaaaaaaaaa" +
+                                         "aaeeeeeeeeeaaaa" +
+                                         "aaeeeeeeeeeeaaa" +
+                                         "aaaaaaaaaeeeaaa" +
+                                         "aaaaaaaaaeeeaaa" +
+                                         "aaeeeeeeeeeeaaa" +
+                                         "aaeeeeeeeee");
+
+        tagImages[TAG_SIX] = createTag ("aaaaaaaaaaaaaaa" +
+                                        "aaakkkkkkkkaaaa" +
+                                        "aakkkkkkkkkaaaa" +
+                                        "aakkkaaaaaaaaaa" +
+                                        "aakkkaaaaaaaaaa" +
+                                        "aakkkkkkkkkaaaa" +
+                                        "aakkkkkkkkkkaaa" +
+                                        "aakkkaaaakkkaaa" +
+                                        "aakkkaaaakkkaaa" +
+                                        "aakkkkkkkkkkaaa" +
+                                        "aaakkkkkkkk");
+
+        tagImages[TAG_SEVEN] = createTag ("aaaaaaaaaaaaaaa" + 
+                                          "aabbbbbbbbbbaaa" + 
+                                          "aabbbbbbbbbbaaa" + 
+                                          "aaaaaaaaabbbaaa" + 
+                                          "aaaaaaaaabbbaaa" + 
+                                          "aaaaaaaabbbaaaa" + 
+                                          "aaaaaaaabbbaaaa" + 
+                                          "aaaaaaabbbaaaaa" + 
+                                          "aaaaaaabbbaaaaa" + 
+                                          "aaaaaabbbaaaaaa" + 
+                                          "aaaaaabbb");
+
+        tagImages[TAG_EIGHT] = createTag ("aaaaaaaaaaaaaaa" +
+                                          "aaajjjjjjjjaaaa" +
+                                          "aajjjjjjjjjjaaa" +
+                                          "aajjjaaaajjjaaa" +
+                                          "aajjjaaaajjjaaa" +
+                                          "aaajjjjjjjjaaaa" +
+                                          "aaajjjjjjjjaaaa" +
+                                          "aajjjaaaajjjaaa" +
+                                          "aajjjaaaajjjaaa" +
+                                          "aajjjjjjjjjjaaa" +
+                                          "aaajjjjjjjj");
+
+        happyImage = createIcon ("aaaaaabbbbbaaaaaa" +
+                                 "aaaabbfffffbbaaaa" +
+                                 "aaabfffffffffbaaa" +
+                                 "aabafffffffffabaa" +
+                                 "abafffffffffffaba" +
+                                 "abaffbbfffbbffaba" +
+                                 "bffffbbfffbbffffb" +
+                                 "bfffffffffffffffb" +
+                                 "bfffffffffffffffb" +
+                                 "bfffffffffffffffb" +
+                                 "bfffbfffffffbfffb" +
+                                 "abaffbfffffbffaba" +
+                                 "abafffbbbbbfffaba" +
+                                 "aabafffffffffabaa" +
+                                 "aaabfffffffffbaaa" +
+                                 "aaaabbfffffbbaaaa" +
+                                 "aaaaaabbbbbaaaaaa",
+                                 17);
+
+        scaredImage = createIcon ("aaaaaabbbbbaaaaaa" +
+                                  "aaaabbfffffbbaaaa" +
+                                  "aaabfffffffffbaaa" +
+                                  "aabafffffffffabaa" +
+                                  "abafjbjfffjbjfaba" +
+                                  "abafbbbfffbbbfaba" +
+                                  "bfffjbjfffjbjfffb" +
+                                  "bfffffffffffffffb" +
+                                  "bfffffffffffffffb" +
+                                  "bffffffbbbffffffb" +
+                                  "bfffffbbfbbfffffb" +
+                                  "abafffbfffbfffaba" +
+                                  "abafffbbfbbfffaba" +
+                                  "aabafffbbbfffabaa" +
+                                  "aaabfffffffffbaaa" +
+                                  "aaaabbfffffbbaaaa" +
+                                  "aaaaaabbbbbaaaaaa",
+                                  17);
+
+        deadImage = createIcon ("aaaaaabbbbbaaaaaa" +
+                                "aaaabbfffffbbaaaa" +
+                                "aaabfffffffffbaaa" +
+                                "aabafffffffffabaa" +
+                                "abafbfbfffbfbfaba" +
+                                "abaffbfffffbffaba" +
+                                "bfffbfbfffbfbfffb" +
+                                "bfffffffffffffffb" +
+                                "bfffffffffffffffb" +
+                                "bfffffffffffffffb" +
+                                "bfffffbbbbbfffffb" +
+                                "abaffbfffffbffaba" +
+                                "abafbfffffffbfaba" +
+                                "aabafffffffffabaa" +
+                                "aaabfffffffffbaaa" +
+                                "aaaabbfffffbbaaaa" +
+                                "aaaaaabbbbbaaaaaa",
+                                17);
+
+        coolImage = createIcon ("aaaaaabbbbbaaaaaa" +
+                                "aaaabbfffffbbaaaa" +
+                                "aaabfffffffffbaaa" +
+                                "aabafffffffffabaa" +
+                                "abafffffffffffaba" +
+                                "abafbbbbbbbbbfaba" +
+                                "bffbbbbbfbbbbbffb" +
+                                "bfbfbbbbfbbbbfbfb" +
+                                "bbffjbbfffbbjffbb" +
+                                "bfffffffffffffffb" +
+                                "bfffffffffffffffb" +
+                                "abaffbfffffbffaba" +
+                                "abafffbbbbbfffaba" +
+                                "aabafffffffffabaa" +
+                                "aaabfffffffffbaaa" +
+                                "aaaabbfffffbbaaaa" +
+                                "aaaaaabbbbbaaaaaa",
+                                17);
+
+        //
+        // An array matching each pixel of the seven segment display to 
+        // the segment it belongs to:
+        //
+        //      1
+        //     2 3
+        //      4
+        //     5 6
+        //      7
+        //
+        String sevenSegTemplate =
+            "01111111110" +
+            "20111111103" +
+            "22011111033" +
+            "22200000333" +
+            "22200000333" +
+            "22200000333" +
+            "22200000333" +
+            "22200000333" +
+            "22000000033" +
+            "20444444403" +
+            "04444444440" +
+            "50444444406" +
+            "55000000066" +
+            "55500000666" +
+            "55500000666" +
+            "55500000666" +
+            "55500000666" +
+            "55500000666" +
+            "55077777066" +
+            "50777777706" +
+            "07777777770"
+        ;
+
+        for (int digit = 0; digit < sevenSegImages.length; ++digit)
+        {
+            // Map each digit to its set of "lit" segments...
+            int pattern = 0;
+            switch (digit)
+            {
+            case 0:
+                pattern = 0x77;
+                break;
+            case 1:
+                pattern = 0x12;
+                break;
+            case 2:
+                pattern = 0x5d;
+                break;
+            case 3:
+                pattern = 0x5b;
+                break;
+            case 4:
+                pattern = 0x3a;
+                break;
+            case 5:
+                pattern = 0x6b;
+                break;
+            case 6:
+                pattern = 0x6f;
+                break;
+            case 7:
+                pattern = 0x52;
+                break;
+            case 8:
+                pattern = 0x7f;
+                break;
+            case 9:
+                pattern = 0x7b;
+                break;
+            case 10:
+                pattern = 0x08; // the minus sign
+            }
+
+            byte[] data = new byte [sevenSegTemplate.length ()];
+            for (int i = 0; i < data.length; ++i)
+            {
+                byte pixel = 1; // default is black.
+                int seg = sevenSegTemplate.charAt (i) - '0';
+                if (seg != 0)
+                {
+                    int mask = 1 << (7 - seg);
+                    if ((pattern & mask) != 0)
+                        pixel = 3;      // light red
+                    else if (i % 2 == 0)
+                        pixel = 4;      // dark red
+                }
+                data[i] = pixel;
+            }
+
+            sevenSegImages[digit] = createImage (data, 11, 21);
+        }
+
+        baseSprites = createCellSprites ();
+        updateCellSprites ();
+    }
+
+    /**
+     * Compose every look a cell can have into a single image: for each
+     * tag, a tile as it is when exposed or pressed, and beneath it, a tile
+     * as it is when covered.  Painting a cell is then one image copy.
+     */
+    private BufferedImage createCellSprites ()
+    {
+        BufferedImage sprites =
+            new BufferedImage (tagImages.length * CELL_WIDTH,
+                               2 * CELL_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics g = sprites.createGraphics ();
+        for (int tag = 0; tag < tagImages.length; ++tag)
+        {
+            int x = tag * CELL_WIDTH;
+            paintTile (g, x, 0, tag, false);
+            paintTile (g, x, CELL_HEIGHT, tag, true);
+        }
+        g.dispose ();
+        return sprites;
+    }
+
+    /**
+     * Take the cell sprites for cells of the current size, at the
+     * screen's scale.
+     */
+    private void updateCellSprites ()
+    {
+        spriteWidth = (int) Math.round (cellWidth * deviceScale);
+        spriteHeight = (int) Math.round (cellHeight * deviceScale);
+        cellSprites = getCellSprites (spriteWidth, spriteHeight);
+    }
+
+    /**
+     * The cell sprites with tiles of the given size, in screen pixels,
+     * from the cache if drawn lately.
+     */
+    private Image getCellSprites (int width, int height)
+    {
+        if (width == CELL_WIDTH && height == CELL_HEIGHT)
+        {
+            return baseSprites;
+        }
+
+        Integer key = Integer.valueOf ((width << 16) | height);
+        Image sprites = spriteCache.get (key);
+        if (sprites == null)
+        {
+            sprites = createScaledSprites (width, height);
+            spriteCache.put (key, sprites);
+        }
+        return sprites;
+    }
+
+    /**
+     * Scale the cell sprites to cells of the given size, tile by tile so
+     * that no tile bleeds into the next.  Whole multiples keep their
+     * pixels sharp; fractional ones are smoothed.
+     */
+    private Image createScaledSprites (int width, int height)
+    {
+        BufferedImage sprites =
+            new BufferedImage (tagImages.length * width, 2 * height,
+                               BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = sprites.createGraphics ();
+        boolean whole = width % CELL_WIDTH == 0 && height % CELL_HEIGHT == 0;
+        Object interpolation = whole ?
+            RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR :
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+        g.setRenderingHint (RenderingHints.KEY_INTERPOLATION, interpolation);
+        for (int tag = 0; tag < tagImages.length; ++tag)
+        {
+            for (int covered = 0; covered < 2; ++covered)
+            {
+                Image tile = baseSprites.getSubimage (tag * CELL_WIDTH,
+                                                      covered * CELL_HEIGHT,
+                                                      CELL_WIDTH,
+                                                      CELL_HEIGHT);
+                g.drawImage (tile, tag * width, covered * height, 
+                             width, height, null);
+            }
+        }
+        g.dispose ();
+        return sprites;
+    }
+
+    private Image createTag (String stringData)
+    {
+        return createIcon (stringData, 15);
+    }
+
+    private Image createIcon (String stringData, int width)
+    {
+        int dataLength = stringData.length ();
+        int height = (dataLength / width) + 1;
+        byte[] data = new byte [width * height];
+
+        for (int i = 0; i < dataLength; ++i)
+        {
+            data[i] = (byte) (stringData.charAt (i) - 'a');
+        }
+
+        return createImage (data, width, height);
+    }
+
+    private Image createImage (byte[] data, int width, int height)
+    {
+        // Built in memory, rather than from an image producer, so that
+        // it is complete at once and may be drawn into the cell sprites.
+        BufferedImage image =
+            new BufferedImage (width, height, BufferedImage.TYPE_BYTE_INDEXED,
+                               (IndexColorModel) colorModel);
+        image.getRaster ().setDataElements (0, 0, width, height, data);
+        return image;
+    }
+
+    //---------------------------------------------------------------------
+    // Graphics.
+    //---------------------------------------------------------------------
+
+    /**
+     * An extension to Graphics.draw3DRect.  Features variable thickness
+     * border.
+     */
+    private static void draw3DRect (Graphics g, Rectangle rect,
+                                   boolean raised, int thickness)
+    {
+        draw3DRect (g, rect.x, rect.y, rect.width, rect.height, 
+                    raised, thickness);
+    }
+
+    /**
+     * An extension to Graphics.draw3DRect.  Features variable thickness
+     * border.  But less flexible in that it assumes that the current
+     * color is lightGray.
+     */
+    private static void draw3DRect (Graphics g, int x, int y, 
+                                   int width, int height, 
+                                   boolean raised, int thickness)
+    {
+        int left = x;
+        int right = x + width - 1;
+        int top = y;
+        int bottom = y + height - 1;
+                
+        while (--thickness >= 0)
+        {
+            // Draw top, left sides.
+            //
+            g.setColor (raised ? brighterGray : darkerGray);
+            g.drawLine (left, top, right, top);
+            g.drawLine (left, top, left, bottom);
+
+            // Draw bottom, right sides.
+            g.setColor (raised ? darkerGray : brighterGray);
+            g.drawLine (left, bottom, right, bottom);
+            g.drawLine (right, top, right, bottom);
+
+            ++left;
+            ++top;
+            --right;
+            --bottom;
+        }
+    }
+
+    public void paintRestartButton (Graphics g)
+    {
+        int x = restartButtonRect.x;
+        int y = restartButtonRect.y;
+        int width = restartButtonRect.width;
+        int height = restartButtonRect.height;
+
+        g.setColor (Color.lightGray);
+        g.fillRect (x, y, width - 1, height - 1);
+
+        if (restartPressed)
+        {
+            g.setColor (darkerGray);
+            g.drawLine (x + 1, y + 1, x + width - 1, y + 1);
+            g.drawLine (x + 1, y + 1, x + 1, y + height - 1);
+        }
+        else
+        {
+            // Draw inner 3D effect
+            draw3DRect (g, x + 1, y + 1, width - 2, height - 2, true, 2);
+        }
+
+        // Put a dark border on it.
+        g.setColor (darkerGray);
+        g.drawLine (x, y, x + width - 2, y);
+        g.drawLine (x, y, x, y + height - 2);
+        g.drawLine (x + width - 1, y + 1, x + width - 1, y + height - 1);
+        g.drawLine (x + 1, y + height - 1, x + width - 1, y + height - 1);
+
+        g.setColor (Color.lightGray);
+        paintRestartImage (g);
+    }
+
+    private void paintRestartImage (Graphics g)
+    {
+        int x = restartButtonRect.x + 5;
+        int y = restartButtonRect.y + 5;
+        if (restartPressed)
+        {
+            x += 1;
+            y += 1;
+        }
+        g.drawImage (restartImage, x, y, null);
+    }
+
+    private void paintCell (Graphics g, int row, int column, boolean pressed)
+    {
+        boolean covered = !pressed && !field.cellIsExposed (row, column);
+        int x = gridRect.x + (column - leftColumn) * cellWidth;
+        int y = gridRect.y + (row - topRow) * cellHeight;
+        int sx = field.getTag (row, column) * spriteWidth;
+        int sy = covered ? spriteHeight : 0;
+
+        g.drawImage (cellSprites, x, y, x + cellWidth, y + cellHeight,
+                     sx, sy, sx + spriteWidth, sy + spriteHeight, null);
+    }
+
+    /**
+     * Paint the given cell tile, for the cell sprites.
+     */
+    private void paintTile (Graphics g, int x, int y, int tag,
+                            boolean covered)
+    {
+        int width = CELL_WIDTH;
+        int height = CELL_HEIGHT;
+
+        if (!covered)
+        {
+            g.setColor (darkerGray);
+            g.drawLine (x, y, x + width - 1, y);
+            g.drawLine (x, y, x, y + height - 1);
+            g.setColor (tag == TAG_BOOM ? Color.red : Color.lightGray);
+            g.fillRect (x + 1, y + 1, width - 1, height - 1);
+        }
+        else
+        {
+            draw3DRect (g, x, y, width, height, true, 2);
+            g.setColor (Color.lightGray);
+            g.fillRect (x + 2, y + 2, width - 4, height - 4);
+        }
+
+        Image tagImage = tagImages[tag];
+        if (tagImage != null)
+        {
+            g.drawImage (tagImage, x + 1, y + 2, null);
+        }
+    }
+
+    public void drawSevenSeg (Graphics g, Rectangle rect, int[] digits,
+                              int value, boolean fullPaint)
+    {
+        if (fullPaint)
+        {
+            draw3DRect (g, rect, false, 1);
+            Color c = g.getColor ();
+            g.setColor (Color.black);
+            g.fillRect (rect.x + 1, rect.y + 1, rect.width - 2,
+                        rect.height - 2);
+            g.setColor (c);
+        }
+
+        int digitWidth = (rect.width - 2 - digits.length) / 3 + 1;
+
+        int v = Math.abs (value);
+        for (int i = digits.length; --i >= 0; )
+        {
+            int digVal = (i == 0 && value < 0) ? 10 : (v % 10);
+            v /= 10;
+            if (fullPaint || digVal != digits[i])
+            {
+                g.drawImage (sevenSegImages[digVal], 
+                             rect.x + 2 + (i * digitWidth),
+                             rect.y + 2, null);
+            }
+            digits[i] = digVal;
+        }
+    }
+}
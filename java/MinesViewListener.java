@@ -0,0 +1,37 @@
+/**
+ *  MinesViewListener.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * Receives notice from a MinesView of what its host must do for it.  The
+ * host (an applet, a benchmark) implements this to learn when the view
+ * wants painting, when its clock should run, and what its status is.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public interface MinesViewListener
+{
+    /**
+     * The view has changed, and the screen should be brought up to date
+     * with it.
+     */
+    public void viewChanged ();
+
+    /**
+     * The game timer has started: call tickTimer at once, then at each
+     * whole second after, until the clock is stopped.
+     */
+    public void clockStarted ();
+
+    /**
+     * The game timer has stopped.
+     */
+    public void clockStopped ();
+
+    /**
+     * The status of the game has changed.
+     */
+    public void statusChanged (String status);
+}
@@ -0,0 +1,79 @@
+/**
+ *  ProbabilityPlayer.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * A player that plays every move a MineSolver can prove, and when it can
+ * prove none, exposes the cell that MineProbability finds least likely
+ * to be mined.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class ProbabilityPlayer implements MinesPlayer
+{
+    private MineField field;
+    private MineSolver solver;
+    private MineProbability probability;
+
+    public void play (MineField field, MineRandom random)
+    {
+        if (field != this.field)
+        {
+            if (solver != null)
+                solver.detach ();
+            this.field = field;
+            this.solver = new MineSolver (field);
+            this.probability = new MineProbability (solver);
+        }
+
+        int columns = field.getColumns ();
+
+        while (field.gameEnabled ())
+        {
+            if (solver.solve () > 0)
+                continue;
+
+            int index = -1;
+            if (field.getExposedCount () == 0)
+            {
+                // Nothing to go on: the first click is safe anywhere.
+                index = random.nextInt (field.getRows () * columns);
+            }
+            else if (probability.compute ())
+            {
+                index = probability.findSafest ();
+            }
+
+            if (index < 0)
+            {
+                // The numbers, flags and counter contradict each other, so
+                // there are no probabilities to go by: guess.
+                index = findCovered (field, random);
+                if (index < 0)
+                    return;
+            }
+            field.exposeCellAt (index / columns, index % columns);
+        }
+    }
+
+    /**
+     * A covered, unflagged cell, the first from a random cell on, as
+     * row * columns + column, or -1 if there is none.
+     */
+    private static int findCovered (MineField field, MineRandom random)
+    {
+        int columns = field.getColumns ();
+        int ncells = field.getRows () * columns;
+        int start = random.nextInt (ncells);
+        for (int n = 0; n < ncells; ++n)
+        {
+            int index = (start + n) % ncells;
+            int tag = field.getTag (index / columns, index % columns);
+            if (tag == MineField.TAG_NULL || tag == MineField.TAG_QUES)
+                return index;
+        }
+        return -1;
+    }
+}
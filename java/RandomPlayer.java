@@ -0,0 +1,30 @@
+/**
+ *  RandomPlayer.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * The worst player: exposes covered cells at random until the game ends.
+ * A baseline for the simulator.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class RandomPlayer implements MinesPlayer
+{
+    public void play (MineField field, MineRandom random)
+    {
+        int rows = field.getRows ();
+        int columns = field.getColumns ();
+
+        while (field.gameEnabled ())
+        {
+            int row = random.nextInt (rows);
+            int column = random.nextInt (columns);
+            if (!field.cellIsExposed (row, column))
+            {
+                field.exposeCellAt (row, column);
+            }
+        }
+    }
+}
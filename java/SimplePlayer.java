@@ -0,0 +1,127 @@
+/**
+ *  SimplePlayer.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * A player that knows the two simple rules: if a number's covered
+ * neighbors are exactly as many as its mines, flag them all; if a number
+ * already has as many flags as mines, clear around it.  When neither
+ * rule applies anywhere, it exposes a covered cell at random.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class SimplePlayer implements MinesPlayer
+{
+    public void play (MineField field, MineRandom random)
+    {
+        int rows = field.getRows ();
+        int columns = field.getColumns ();
+
+        while (field.gameEnabled ())
+        {
+            boolean progress = false;
+
+            for (int row = 0; row < rows; ++row)
+            {
+                for (int column = 0; column < columns; ++column)
+                {
+                    if (field.gameEnabled () &&
+                        applyRules (field, row, column))
+                    {
+                        progress = true;
+                    }
+                }
+            }
+
+            if (!progress)
+            {
+                guess (field, random);
+            }
+        }
+    }
+
+    /**
+     * Apply the simple rules to one cell.  Returns true if a move was made.
+     */
+    private boolean applyRules (MineField field, int row, int column)
+    {
+        int tag = field.getTag (row, column);
+        if (tag <= MineField.TAG_ZERO)
+            return false;
+
+        int nAdjMines = tag - MineField.TAG_ZERO;
+        int rows = field.getRows ();
+        int columns = field.getColumns ();
+
+        int lowRow = row - 1;
+        if (lowRow < 0) lowRow = 0;
+        int hiRow = row + 1;
+        if (hiRow >= rows) hiRow = rows - 1;
+
+        int lowCol = column - 1;
+        if (lowCol < 0) lowCol = 0;
+        int hiCol = column + 1;
+        if (hiCol >= columns) hiCol = columns - 1;
+
+        int nFlags = 0;
+        int nCovered = 0;
+        for (int r = lowRow; r <= hiRow; ++r)
+        {
+            for (int c = lowCol; c <= hiCol; ++c)
+            {
+                int t = field.getTag (r, c);
+                if (t == MineField.TAG_FLAG)
+                    ++nFlags;
+                else if (t < MineField.TAG_BOOM)
+                    ++nCovered;
+            }
+        }
+
+        if (nCovered == 0)
+            return false;
+
+        if (nFlags == nAdjMines)
+        {
+            field.clearAround (row, column);
+            return true;
+        }
+
+        if (nFlags + nCovered == nAdjMines)
+        {
+            for (int r = lowRow; r <= hiRow; ++r)
+            {
+                for (int c = lowCol; c <= hiCol; ++c)
+                {
+                    int t = field.getTag (r, c);
+                    while (t == MineField.TAG_NULL || t == MineField.TAG_QUES)
+                    {
+                        field.rotateTagAt (r, c);
+                        t = field.getTag (r, c);
+                    }
+                }
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    private void guess (MineField field, MineRandom random)
+    {
+        int rows = field.getRows ();
+        int columns = field.getColumns ();
+
+        for (;;)
+        {
+            int row = random.nextInt (rows);
+            int column = random.nextInt (columns);
+            if (field.getTag (row, column) == MineField.TAG_NULL)
+            {
+                field.exposeCellAt (row, column);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ *  SolverPlayer.java
+ *
+ *  Copyright 1996, 1998, 2006 by James Echmalian.  All rights reserved.
+ */
+
+/**
+ * A player that plays every move a MineSolver can prove, and exposes a
+ * covered cell at random when it can prove none.
+ *
+ * @author James Echmalian, ech@ech.net
+ */
+public final class SolverPlayer implements MinesPlayer
+{
+    private MineField field;
+    private MineSolver solver;
+
+    public void play (MineField field, MineRandom random)
+    {
+        if (field != this.field)
+        {
+            if (solver != null)
+                solver.detach ();
+            this.field = field;
+            this.solver = new MineSolver (field);
+        }
+
+        int rows = field.getRows ();
+        int columns = field.getColumns ();
+
+        while (field.gameEnabled ())
+        {
+            if (solver.solve () > 0)
+                continue;
+
+            int row = random.nextInt (rows);
+            int column = random.nextInt (columns);
+            if (field.getTag (row, column) == MineField.TAG_NULL)
+            {
+                field.exposeCellAt (row, column);
+            }
+        }
+    }
+}
@@ -9,5 +9,5 @@ mkdir -p $CLASSES
 cp -r $ROOT/www/* $APPROOT
 
 # Compile applet.
-jc $SRC/MinesApplet.java
+jc $SRC/*.java
 